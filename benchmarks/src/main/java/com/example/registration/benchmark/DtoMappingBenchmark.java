@@ -0,0 +1,76 @@
+package com.example.registration.benchmark;
+
+import com.example.registration.dto.RegistrationResponseDTO;
+import com.example.registration.dto.StudentResponseDTO;
+import com.example.registration.model.Course;
+import com.example.registration.model.Registration;
+import com.example.registration.model.Student;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Entity to DTO mapping done for every row of a list response
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private List<Student> students;
+    private List<Registration> registrations;
+
+    @Setup
+    public void setup() {
+        students = new ArrayList<>();
+        registrations = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Student student = new Student();
+            student.setId(i);
+            student.setName("Student" + i);
+            student.setEmail("student" + i + "@example.com");
+            students.add(student);
+
+            Course course = new Course();
+            course.setId(i);
+            course.setTitle("Course" + i);
+
+            Registration registration = new Registration(student, course);
+            registration.setRegistrationID(i);
+            registrations.add(registration);
+        }
+    }
+
+    // GET /api/students
+    @Benchmark
+    public void studentResponseDTOs(Blackhole blackhole) {
+        for (Student student : students) {
+            blackhole.consume(new StudentResponseDTO(student));
+        }
+    }
+
+    // GET /api/registrations/{id}, built from the entity and its associations
+    @Benchmark
+    public void registrationResponseDTOsFromEntities(Blackhole blackhole) {
+        for (Registration registration : registrations) {
+            blackhole.consume(new RegistrationResponseDTO(registration));
+        }
+    }
+
+    // the projection constructor the list queries call for every row
+    @Benchmark
+    public void registrationResponseDTOsFromProjection(Blackhole blackhole) {
+        for (Registration registration : registrations) {
+            blackhole.consume(new RegistrationResponseDTO(registration.getRegistrationID(),
+                    registration.getStudentId(), registration.getStudentName(),
+                    registration.getCourseId(), registration.getCourseName()));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.registration.benchmark;
+
+import com.example.registration.dto.RegistrationResponseDTO;
+import com.example.registration.dto.StudentResponseDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of the list responses, with the same ObjectMapper settings Spring Boot uses
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter registrationListWriter;
+    private List<StudentResponseDTO> students;
+    private List<RegistrationResponseDTO> registrations;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        registrationListWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, RegistrationResponseDTO.class));
+        students = new ArrayList<>();
+        registrations = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            StudentResponseDTO student = new StudentResponseDTO();
+            student.setId(i);
+            student.setName("Student" + i);
+            student.setEmail("student" + i + "@example.com");
+            students.add(student);
+
+            registrations.add(new RegistrationResponseDTO(i, i, "Student" + i, i, "Course" + i));
+        }
+    }
+
+    // GET /api/students
+    @Benchmark
+    public byte[] students() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(students);
+    }
+
+    // GET /api/registrations
+    @Benchmark
+    public byte[] registrations() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(registrations);
+    }
+
+    // the same list through a writer bound to the element type, created once up front
+    @Benchmark
+    public byte[] registrationsWithTypedWriter() throws JsonProcessingException {
+        return registrationListWriter.writeValueAsBytes(registrations);
+    }
+}
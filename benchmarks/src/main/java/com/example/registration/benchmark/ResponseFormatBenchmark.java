@@ -0,0 +1,105 @@
+package com.example.registration.benchmark;
+
+import com.example.registration.dto.RegistrationResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// GET /api/registrations in each response format the API negotiates, see ResponseFormatConfig
+// serialize is the server's side of a response, parse the batch consumer's
+// the payload size of every format is reported by JMH next to the timings, see PayloadSize
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    // json-gzip is what server.compression sends to clients asking for gzip, at the JDK's default level
+    @Param({"json", "json-gzip", "smile", "cbor"})
+    private String format;
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private boolean gzip;
+    private List<RegistrationResponseDTO> registrations;
+    private byte[] payload;
+
+    // reported as secondary results of every benchmark, payloadBytes and bytesPerRow in the output and jmh-result.json
+    // EVENTS counters are a total per iteration, these are set rather than added to so they read as one payload's size
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long payloadBytes;
+        public double bytesPerRow;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "json", "json-gzip" -> Jackson2ObjectMapperBuilder.json();
+            case "smile" -> Jackson2ObjectMapperBuilder.json().factory(new SmileFactory());
+            case "cbor" -> Jackson2ObjectMapperBuilder.json().factory(new CBORFactory());
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        ObjectMapper objectMapper = builder.build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, RegistrationResponseDTO.class));
+        reader = objectMapper.readerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, RegistrationResponseDTO.class));
+        gzip = format.endsWith("-gzip");
+
+        registrations = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            registrations.add(new RegistrationResponseDTO(i, i, "Student" + i, i, "Course" + i));
+        }
+        payload = write();
+    }
+
+    @Benchmark
+    public byte[] serialize(PayloadSize size) throws IOException {
+        byte[] written = write();
+        record(size, written.length);
+        return written;
+    }
+
+    @Benchmark
+    public List<RegistrationResponseDTO> parse(PayloadSize size) throws IOException {
+        record(size, payload.length);
+        try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(payload)) : new ByteArrayInputStream(payload)) {
+            return reader.readValue(in);
+        }
+    }
+
+    private byte[] write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            writer.writeValue(out, registrations);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void record(PayloadSize size, int bytes) {
+        size.payloadBytes = bytes;
+        size.bytesPerRow = (double) bytes / rows;
+    }
+}
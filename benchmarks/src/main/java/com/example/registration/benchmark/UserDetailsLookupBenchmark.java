@@ -0,0 +1,73 @@
+package com.example.registration.benchmark;
+
+import com.example.registration.CourseregistrationApplication;
+import com.example.registration.model.Student;
+import com.example.registration.repository.StudentRepository;
+import com.example.registration.service.AdminUserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// AdminUserService.loadUserByUsername, the lookup behind every HTTP Basic request and login
+// runs the whole application against an in-memory H2 database in PostgreSQL mode
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsLookupBenchmark {
+
+    @Param({"10000"})
+    private int students;
+
+    private ConfigurableApplicationContext context;
+    private AdminUserService adminUserService;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(CourseregistrationApplication.class)
+                // command line arguments, so they win over application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        adminUserService = context.getBean(AdminUserService.class);
+
+        List<Student> rows = new ArrayList<>();
+        for (int i = 0; i < students; i++) {
+            Student student = new Student();
+            student.setName("Student" + i);
+            student.setEmail(email(i));
+            // the hash is never checked here, only loaded
+            student.setPassword("$2a$10$abcdefghijklmnopqrstuu");
+            rows.add(student);
+        }
+        context.getBean(StudentRepository.class).saveAll(rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return adminUserService.loadUserByUsername(email(ThreadLocalRandom.current().nextInt(students)));
+    }
+
+    private static String email(int i) {
+        return "student" + i + "@example.com";
+    }
+}
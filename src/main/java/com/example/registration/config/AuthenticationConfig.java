@@ -1,8 +1,14 @@
 package com.example.registration.config;
 
+import com.example.registration.service.TokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -10,31 +16,52 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties({TokenProperties.class, RateLimitProperties.class})
 public class AuthenticationConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService, MeterRegistry meterRegistry,
+                                                   RateLimitProperties rateLimitProperties) throws Exception {
         http
                 // no need for csrf protection, using token-based auth
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests((authorize) -> authorize
                         // allows for students to be created unauthorized but that is it
                         .requestMatchers(HttpMethod.POST, "/api/students").permitAll()
+                        // logging in exchanges the password for a bearer token
+                        .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
+                        // error pages keep the original status (e.g. a 503 from the public sign-up) instead of becoming a 401
+                        .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
                         // any other requests must be authenticated
                         .anyRequest().authenticated()
                 )
                 // no session is created, stateless
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                // bearer tokens are checked first, without touching the database or BCrypt
+                .addFilterBefore(new BearerTokenAuthenticationFilter(tokenService, meterRegistry), BasicAuthenticationFilter.class)
                 // using basic authentication header in Postman
                 .httpBasic(withDefaults());
+        if (rateLimitProperties.isEnabled()) {
+            // failed sign-ins are limited per IP ahead of both authentication filters, before any BCrypt check
+            http.addFilterBefore(new AuthenticationFailureLimitFilter(rateLimitProperties, meterRegistry), BearerTokenAuthenticationFilter.class);
+            // after both authentication filters, so requests are limited per student rather than per IP once signed in
+            http.addFilterAfter(new RateLimitFilter(rateLimitProperties, meterRegistry), BasicAuthenticationFilter.class);
+        }
         return http.build();
     }
 
+    @Bean
+    public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
+        // email and password check used by POST /api/auth/login
+        return authenticationConfiguration.getAuthenticationManager();
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         // using BCrypt's hashing algorithm for passwords
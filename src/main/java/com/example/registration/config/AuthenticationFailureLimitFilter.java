@@ -0,0 +1,59 @@
+package com.example.registration.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Limits failed sign-ins per client IP, ahead of the authentication filters
+// a request that presented a password (HTTP Basic or POST /api/auth/login) and got a 401 takes a token,
+// once the IP has none left its password checks are turned away with a 429 before any BCrypt check or user lookup
+// bearer tokens are left alone: rejecting one costs an HMAC, not BCrypt, and every student behind a shared IP
+// sends an expired one each time their token runs out, which would drain the bucket for everyone on that IP
+// sign-ins that succeed cost nothing, so students sharing an IP are only held up by each other's failures
+// rejections are counted as rate.limit.rejected{limit=failed-sign-in}
+public class AuthenticationFailureLimitFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN_PATH = "/api/auth/login";
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final ClientLimiter failures;
+
+    public AuthenticationFailureLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.failures = new ClientLimiter("failed-sign-in", properties.getFailedSignIn(), properties.getMaxClients(), meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!checksPassword(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String client = "ip:" + request.getRemoteAddr();
+        long waitNanos = failures.waitNanos(client);
+        if (waitNanos > 0) {
+            failures.reject(response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+        if (response.getStatus() == HttpServletResponse.SC_UNAUTHORIZED) {
+            failures.tryTake(client);
+        }
+    }
+
+    private static boolean checksPassword(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null) {
+            return authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length());
+        }
+        return HttpMethod.POST.matches(request.getMethod()) && LOGIN_PATH.equals(request.getServletPath());
+    }
+}
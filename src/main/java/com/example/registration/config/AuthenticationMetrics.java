@@ -0,0 +1,42 @@
+package com.example.registration.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+// Counts email and password checks (HTTP Basic and POST /api/auth/login) as auth.attempts{method=password}
+// Spring Security publishes an event for each one, bearer tokens are counted in BearerTokenAuthenticationFilter
+@Component
+public class AuthenticationMetrics {
+
+    public static final String ATTEMPTS = "auth.attempts";
+
+    private final Counter successes;
+    private final Counter failures;
+
+    public AuthenticationMetrics(MeterRegistry meterRegistry) {
+        this.successes = attempts(meterRegistry, "password", "success");
+        this.failures = attempts(meterRegistry, "password", "failure");
+    }
+
+    @EventListener
+    public void authenticationSucceeded(AuthenticationSuccessEvent event) {
+        successes.increment();
+    }
+
+    @EventListener
+    public void authenticationFailed(AbstractAuthenticationFailureEvent event) {
+        failures.increment();
+    }
+
+    static Counter attempts(MeterRegistry meterRegistry, String method, String result) {
+        return Counter.builder(ATTEMPTS)
+                .description("Authentication attempts")
+                .tag("method", method)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.registration.config;
+
+import com.example.registration.service.TokenService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+
+// Authenticates requests carrying "Authorization: Bearer <token>" from POST /api/auth/login
+// only the token signature and expiry are checked, there is no database lookup or BCrypt work
+public class BearerTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+    private final Counter successes;
+    private final Counter failures;
+
+    public BearerTokenAuthenticationFilter(TokenService tokenService, MeterRegistry meterRegistry) {
+        this.tokenService = tokenService;
+        this.successes = AuthenticationMetrics.attempts(meterRegistry, "bearer", "success");
+        this.failures = AuthenticationMetrics.attempts(meterRegistry, "bearer", "failure");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        // no bearer token, leave it to basic authentication
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Optional<String> email = tokenService.verifyToken(header.substring(BEARER_PREFIX.length()).trim());
+        if (email.isEmpty()) {
+            failures.increment();
+            // tell the client to log in again instead of falling through to a basic auth challenge
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        successes.increment();
+
+        // the email is the username, same as with basic authentication
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(email.get(), null, Collections.emptyList()));
+        SecurityContextHolder.setContext(context);
+
+        filterChain.doFilter(request, response);
+    }
+
+    // the session is stateless, so error pages (e.g. a 409 from a controller) and the async dispatch of streamed
+    // responses have to be authenticated again or they turn into a 401
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
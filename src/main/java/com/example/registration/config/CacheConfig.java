@@ -0,0 +1,35 @@
+package com.example.registration.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // single courses by id
+    public static final String COURSES = "courses";
+    // the full course list, stored under one key
+    public static final String COURSE_CATALOG = "courseCatalog";
+    // each student's registrations as DTOs, by student id
+    public static final String STUDENT_SCHEDULES = "studentSchedules";
+
+    private static final List<String> CACHE_NAMES = List.of(COURSES, COURSE_CATALOG, STUDENT_SCHEDULES);
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> cacheSpecs(Environment environment) {
+        // each cache gets its own size and expiry from registration.cache.<name>.spec (Caffeine spec syntax)
+        // stats are always recorded so hits, misses and evictions show up under /actuator/metrics/cache.*
+        return cacheManager -> CACHE_NAMES.forEach(name -> cacheManager.registerCustomCache(name,
+                Caffeine.from(environment.getRequiredProperty("registration.cache." + name + ".spec"))
+                        .recordStats()
+                        .build()));
+    }
+}
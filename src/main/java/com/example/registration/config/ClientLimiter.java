@@ -0,0 +1,58 @@
+package com.example.registration.config;
+
+import com.example.registration.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// One rate limit's token buckets by client, used by RateLimitFilter and AuthenticationFailureLimitFilter
+// bounded by maxClients, and a bucket is dropped once it has been left alone long enough to be full again
+class ClientLimiter {
+
+    private final RateLimitProperties.Limit limit;
+    private final Cache<String, TokenBucket> buckets;
+    private final Counter rejected;
+
+    ClientLimiter(String name, RateLimitProperties.Limit limit, long maxClients, MeterRegistry meterRegistry) {
+        this.limit = limit;
+        long refillAllNanos = newBucket().refillAllNanos();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(refillAllNanos))
+                .build();
+        this.rejected = Counter.builder(RateLimitFilter.REJECTED)
+                .description("Requests turned away for going over a rate limit")
+                .tag("limit", name)
+                .register(meterRegistry);
+    }
+
+    // takes a token from the client's bucket, returns 0 if there was one, otherwise nanoseconds until there will be
+    long tryTake(String client) {
+        return buckets.get(client, key -> newBucket()).tryTake(System.nanoTime());
+    }
+
+    // nanoseconds until the client's bucket has a token, without taking one
+    long waitNanos(String client) {
+        TokenBucket bucket = buckets.getIfPresent(client);
+        return bucket == null ? 0 : bucket.waitNanos(System.nanoTime());
+    }
+
+    // 429 with Retry-After in whole seconds, rounded up so a client that waits as told finds a token
+    void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        rejected.increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, try again later");
+    }
+
+    private TokenBucket newBucket() {
+        return new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond());
+    }
+}
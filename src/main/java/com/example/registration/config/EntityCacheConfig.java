@@ -0,0 +1,62 @@
+package com.example.registration.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.util.OptionalLong;
+
+// Hibernate's second-level and query cache, Caffeine behind the JCache API
+// the regions are created here from registration.entity-cache.regions.*, and Hibernate is set to fail at startup
+// on any region that isn't configured rather than quietly creating an unbounded one
+// hits, misses and puts per region are under /actuator/metrics/hibernate.second.level.cache.* and hibernate.cache.query.*
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(EntityCacheProperties.class)
+public class EntityCacheConfig {
+
+    // Course and Student entities by id
+    public static final String COURSE_REGION = "course";
+    public static final String STUDENT_REGION = "student";
+    // StudentRepository.findCredentialsByEmail results, the email and password hash themselves
+    public static final String STUDENT_BY_EMAIL_REGION = "student-by-email";
+
+    // a provider of its own, so every application context (several in one test run) gets its own regions
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(EntityCacheProperties properties) {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        properties.getRegions().forEach((name, region) -> cacheManager.createCache(name, configuration(region)));
+        // when each table was last written, checked before any cached query result is used
+        // never bounded, a timestamp evicted too early would let a query cache hit return stale rows
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                configuration(new EntityCacheProperties.Region()));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheRegions(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration(EntityCacheProperties.Region region) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (region.getMaximumSize() != null) {
+            configuration.setMaximumSize(OptionalLong.of(region.getMaximumSize()));
+        }
+        if (region.getExpireAfterWrite() != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(region.getExpireAfterWrite().toNanos()));
+        }
+        // Hibernate caches its own immutable copy of each row, copying it again on every read and write is wasted work
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.registration.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// regions of Hibernate's second-level and query cache (registration.entity-cache.* in application.properties)
+// every region Hibernate uses has to be listed, see EntityCacheConfig
+@ConfigurationProperties(prefix = "registration.entity-cache")
+public class EntityCacheProperties {
+
+    // region name -> its eviction policy
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    // eviction policy of one region, a region with neither setting is never evicted
+    public static class Region {
+
+        // most entries, the least recently and least often used go first
+        private Long maximumSize;
+
+        // entries are dropped this long after they were cached, bounds how stale they get from writes
+        // Hibernate doesn't see, like other instances' seat updates
+        private Duration expireAfterWrite;
+
+        // getters
+        public Long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        // setters
+        public void setMaximumSize(Long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+    }
+
+    // getters
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+
+    // setters
+    public void setRegions(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+}
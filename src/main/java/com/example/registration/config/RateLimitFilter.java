@@ -0,0 +1,70 @@
+package com.example.registration.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Turns away a client's /api requests with a 429 and Retry-After once it goes over its limit, before any database work
+// runs after authentication, so a signed-in student is limited by email wherever they connect from,
+// and anyone else by the client IP (behind a proxy set server.forward-headers-strategy, or every client shares one IP)
+// rejections are counted as rate.limit.rejected{limit=sign-up|writes|reads}
+// failed sign-ins are limited per IP before authentication, see AuthenticationFailureLimitFilter
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String REJECTED = "rate.limit.rejected";
+
+    private final ClientLimiter signUp;
+    private final ClientLimiter writes;
+    private final ClientLimiter reads;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.signUp = new ClientLimiter("sign-up", properties.getSignUp(), properties.getMaxClients(), meterRegistry);
+        this.writes = new ClientLimiter("writes", properties.getWrites(), properties.getMaxClients(), meterRegistry);
+        this.reads = new ClientLimiter("reads", properties.getReads(), properties.getMaxClients(), meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        ClientLimiter limiter;
+        String client;
+        if (HttpMethod.POST.matches(method) && "/api/students".equals(request.getServletPath())) {
+            limiter = signUp;
+            client = "ip:" + request.getRemoteAddr();
+        } else {
+            limiter = HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) ? reads : writes;
+            client = client(request);
+        }
+
+        long waitNanos = limiter.tryTake(client);
+        if (waitNanos > 0) {
+            limiter.reject(response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // everything outside the API (actuator, error pages) is left alone
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getServletPath().startsWith("/api/");
+    }
+
+    private static String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "student:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
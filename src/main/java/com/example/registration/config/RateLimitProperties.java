@@ -0,0 +1,108 @@
+package com.example.registration.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// per-client request limits (registration.rate-limit.* in application.properties), see RateLimitFilter
+@ConfigurationProperties(prefix = "registration.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // most clients tracked per limit, the least active are forgotten first and start again with a full bucket
+    private long maxClients = 100_000;
+
+    // POST /api/students, per client IP since nobody is signed in yet
+    private Limit signUp = new Limit(20, 1);
+
+    // every other POST, PUT and DELETE under /api, per student or, before logging in, per client IP
+    private Limit writes = new Limit(20, 5);
+
+    // GET under /api, per student or client IP
+    private Limit reads = new Limit(100, 50);
+
+    // requests with credentials that were refused with a 401, per client IP, see AuthenticationFailureLimitFilter
+    private Limit failedSignIn = new Limit(20, 0.5);
+
+    // a token bucket: up to capacity requests at once, then refillPerSecond on average
+    public static class Limit {
+
+        private long capacity;
+        private double refillPerSecond;
+
+        public Limit() {
+        }
+
+        public Limit(long capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+
+        // getters
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        // setters
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+
+    // getters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getMaxClients() {
+        return maxClients;
+    }
+
+    public Limit getSignUp() {
+        return signUp;
+    }
+
+    public Limit getWrites() {
+        return writes;
+    }
+
+    public Limit getReads() {
+        return reads;
+    }
+
+    public Limit getFailedSignIn() {
+        return failedSignIn;
+    }
+
+    // setters
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setMaxClients(long maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public void setSignUp(Limit signUp) {
+        this.signUp = signUp;
+    }
+
+    public void setWrites(Limit writes) {
+        this.writes = writes;
+    }
+
+    public void setReads(Limit reads) {
+        this.reads = reads;
+    }
+
+    public void setFailedSignIn(Limit failedSignIn) {
+        this.failedSignIn = failedSignIn;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.registration.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Sends read-only transactions to the read replicas and everything else to the primary
+// only active when at least one registration.datasource.replicas[n].url is set, otherwise Boot's single pool is used
+//
+// the application's DataSource is a LazyConnectionDataSourceProxy, which only takes a real connection at the first
+// statement, after the transaction manager has marked the connection read-only
+// read-only connections come from ReplicaDataSource, the rest from the primary pool
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "registration.datasource", name = "replicas[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    // the pool configured by spring.datasource.*, not injected by type so it doesn't compete with dataSource
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // one pool per replica, with the primary pool's settings
+    @Bean(defaultCandidate = false)
+    public ReplicaDataSource replicaDataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                               ReplicaProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaProperties.Replica settings = properties.getReplicas().get(i);
+            HikariDataSource replica = new HikariDataSource();
+            primary.copyStateTo(replica);
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(settings.getUrl());
+            if (settings.getUsername() != null) {
+                replica.setUsername(settings.getUsername());
+                replica.setPassword(settings.getPassword());
+            }
+            replica.setReadOnly(true);
+            // Boot only binds pool metrics for the pools it can reach from the DataSource bean
+            meterRegistry.ifAvailable(registry -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(replica);
+        }
+        return new ReplicaDataSource(replicas, primary, properties);
+    }
+
+    @Bean
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 @Qualifier("replicaDataSource") ReplicaDataSource replicas) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicas);
+        return dataSource;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.registration.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Hands out connections to the read replicas, round robin over the ones that are up and caught up
+// used by ReadReplicaConfig for read-only transactions only
+// a replica is skipped when it lags more than maxLag or a connection to it fails, and taken back once a check passes
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> replicas;
+    private final DataSource primary;
+    private final ReplicaProperties properties;
+
+    // 1 if the replica at that index can be used
+    private final AtomicIntegerArray available;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(List<HikariDataSource> replicas, DataSource primary, ReplicaProperties properties) {
+        this.replicas = replicas;
+        this.primary = primary;
+        this.properties = properties;
+        this.available = new AtomicIntegerArray(replicas.size());
+        // assumed up until the first check says otherwise
+        for (int i = 0; i < replicas.size(); i++) {
+            available.set(i, 1);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            if (available.get(index) == 0) {
+                continue;
+            }
+            try {
+                return replicas.get(index).getConnection();
+            } catch (SQLException e) {
+                // down, skip it until the next check finds it up again
+                available.set(index, 0);
+            }
+        }
+        if (properties.getFallback() == ReplicaProperties.Fallback.PRIMARY) {
+            return primary.getConnection();
+        }
+        throw new SQLTransientConnectionException("No read replica is available");
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    // checks every replica's lag, including the ones skipped so far
+    @Scheduled(fixedDelayString = "${registration.datasource.check-interval:5s}")
+    public void checkReplicas() {
+        for (int i = 0; i < replicas.size(); i++) {
+            available.set(i, isCaughtUp(replicas.get(i)) ? 1 : 0);
+        }
+    }
+
+    // number of replicas read-only transactions are currently sent to
+    public int availableReplicas() {
+        int count = 0;
+        for (int i = 0; i < available.length(); i++) {
+            count += available.get(i);
+        }
+        return count;
+    }
+
+    private boolean isCaughtUp(HikariDataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet lag = statement.executeQuery(properties.getLagQuery())) {
+            return lag.next() && lag.getDouble(1) * 1000 <= properties.getMaxLag().toMillis();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.registration.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// read replicas that read-only transactions are sent to (registration.datasource.* in application.properties)
+// without any replica every transaction uses spring.datasource as before
+@ConfigurationProperties(prefix = "registration.datasource")
+public class ReplicaProperties {
+
+    // what read-only transactions do when no replica is usable
+    public enum Fallback {
+        // read from the primary instead
+        PRIMARY,
+        // fail, so the primary is never loaded with the read traffic
+        FAIL
+    }
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    private Fallback fallback = Fallback.PRIMARY;
+
+    // a replica further behind the primary than this is skipped until it catches up
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    // how far the replica is behind the primary in seconds, 0 when it has replayed everything it received
+    // runs on the replica, the default is for postgres streaming replication
+    private String lagQuery = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+
+    // how often every replica is checked for lag, and unavailable ones are tried again
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    // connection settings of one replica, the pool settings are copied from spring.datasource.hikari
+    public static class Replica {
+
+        private String url;
+
+        // the primary's username and password when not set
+        private String username;
+        private String password;
+
+        // getters
+        public String getUrl() {
+            return url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        // setters
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+
+    // getters
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public Fallback getFallback() {
+        return fallback;
+    }
+
+    public Duration getMaxLag() {
+        return maxLag;
+    }
+
+    public String getLagQuery() {
+        return lagQuery;
+    }
+
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    // setters
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public void setFallback(Fallback fallback) {
+        this.fallback = fallback;
+    }
+
+    public void setMaxLag(Duration maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    public void setLagQuery(String lagQuery) {
+        this.lagQuery = lagQuery;
+    }
+
+    public void setCheckInterval(Duration checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+}
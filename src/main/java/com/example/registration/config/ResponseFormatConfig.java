@@ -0,0 +1,31 @@
+package com.example.registration.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// Binary alternatives to JSON for the batch consumers, picked by the Accept header
+//   Accept: application/cbor           CBOR
+//   Accept: application/x-jackson-smile Smile
+// anything else, */* included, still gets JSON since the JSON converter comes first
+// the responses are the same objects as the JSON ones, only the encoding differs
+//
+// Spring MVC would register both converters on its own, but with mappers that skip spring.jackson.*
+// these are built from Boot's Jackson2ObjectMapperBuilder, so every format is configured like the JSON
+@Configuration(proxyBeanMethods = false)
+public class ResponseFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.registration.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// settings for the bearer tokens handed out by POST /api/auth/login (auth.token.* in application.properties)
+@ConfigurationProperties(prefix = "auth.token")
+public class TokenProperties {
+
+    // how long a token is valid after login
+    private Duration expiry = Duration.ofMinutes(15);
+
+    // id of the key new tokens are signed with
+    private String activeKeyId;
+
+    // every key id and its HMAC secret that tokens are still accepted for
+    // to rotate, add a new key, make it active, and remove the old one once its tokens have expired
+    private Map<String, String> keys = new LinkedHashMap<>();
+
+    // getters
+    public Duration getExpiry() {
+        return expiry;
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public Map<String, String> getKeys() {
+        return keys;
+    }
+
+    // setters
+    public void setExpiry(Duration expiry) {
+        this.expiry = expiry;
+    }
+
+    public void setActiveKeyId(String activeKeyId) {
+        this.activeKeyId = activeKeyId;
+    }
+
+    public void setKeys(Map<String, String> keys) {
+        this.keys = keys;
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.registration.controller;
 
+import com.example.registration.dto.CourseSearchResultDTO;
+import com.example.registration.dto.EnrollmentDTO;
 import com.example.registration.model.Course;
 import com.example.registration.service.CourseService;
+import com.example.registration.util.ETags;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -24,16 +28,44 @@ public class CourseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdCourse);
     }
 
+    // the catalog comes from the catalog cache with its version, a 304 only compares the version and writes no body
     @GetMapping
-    public List<Course> getAllCourses() {
+    public ResponseEntity<List<Course>> getAllCourses(WebRequest request) {
+        CourseService.Catalog catalog = courseService.getAllCourses();
+        String eTag = ETags.weak(catalog.version());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(catalog.courses());
+    }
+
+    // ranked matches for q, each word matching whole words or word prefixes in the title or description
+    @GetMapping("/search")
+    public List<CourseSearchResultDTO> searchCourses(@RequestParam String q,
+                                                     @RequestParam(defaultValue = "20") int limit) {
+        return courseService.searchCourses(q, limit);
+    }
+
+    // enrollment of several courses, e.g. /api/courses/enrollment?ids=1,2,3
+    @GetMapping("/enrollment")
+    public List<EnrollmentDTO> getEnrollments(@RequestParam List<Integer> ids) {
+        return courseService.getEnrollments(ids);
+    }
 
-        return courseService.getAllCourses();
+    @GetMapping("/{id}/enrollment")
+    public EnrollmentDTO getEnrollment(@PathVariable Integer id) {
+        return courseService.getEnrollment(id);
     }
 
+    // the course comes from the course cache, a 304 only compares its version and writes no body
     @GetMapping("/{id}")
-    public ResponseEntity<Course> getCourseById(@PathVariable Integer id) {
+    public ResponseEntity<Course> getCourseById(@PathVariable Integer id, WebRequest request) {
         Course course = courseService.getCourseById(id);
-        return ResponseEntity.ok(course);
+        String eTag = ETags.weak(course.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(course);
     }
 
     @PutMapping("/{id}")
@@ -1,21 +1,43 @@
 package com.example.registration.controller;
 
+import com.example.registration.dto.BulkRegistrationResultDTO;
 import com.example.registration.dto.RegistrationResponseDTO;
 import com.example.registration.service.RegistrationService;
+import com.example.registration.util.Csv;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/registrations")
 public class RegistrationController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
     private final RegistrationService registrationService;
+    private final ObjectMapper objectMapper;
 
-    public RegistrationController(RegistrationService registrationService) {
+    public RegistrationController(RegistrationService registrationService, ObjectMapper objectMapper) {
         this.registrationService = registrationService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -24,9 +46,100 @@ public class RegistrationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
+    // up to RegistrationService.MAX_BULK_SIZE (studentId, courseId) pairs at once, with a result per pair
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkRegistrationResultDTO>> createRegistrations(@RequestBody List<RegistrationResponseDTO> requestDtos) {
+        return ResponseEntity.ok(registrationService.createRegistrations(requestDtos));
+    }
+
+    // one page of registrations, pass the last registrationID seen as "after" to get the next one
     @GetMapping
-    public List<RegistrationResponseDTO> getAllRegistrations() {
-        return registrationService.getAllRegistrations();
+    public ResponseEntity<List<RegistrationResponseDTO>> getAllRegistrations(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "" + RegistrationService.DEFAULT_PAGE_SIZE) int size) {
+        List<RegistrationResponseDTO> page = registrationService.getRegistrationsPage(after, size);
+
+        // a full page means there may be more, so link to the next one
+        if (page.size() == size) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.get(page.size() - 1).getRegistrationID())
+                    .replaceQueryParam("size", size)
+                    .toUriString();
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                    .body(page);
+        }
+        return ResponseEntity.ok(page);
+    }
+
+    // every registration as one JSON array, written to the response as rows come off the database cursor
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllRegistrations() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator json = objectMapper.createGenerator(outputStream)) {
+                json.writeStartArray();
+                registrationService.streamAllRegistrations(registration -> {
+                    try {
+                        json.writeObject(registration);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+
+    // every registration for reporting, as newline-delimited JSON (the default) or CSV, one row per line
+    // rows are written as they come off the database cursor, so the export runs in constant memory however big the table is
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRegistrations(@RequestParam(defaultValue = "ndjson") String format) {
+        return switch (format) {
+            case "ndjson" -> export(NDJSON, "registrations.ndjson", this::writeNdjson);
+            case "csv" -> export(CSV, "registrations.csv", this::writeCsv);
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format + ", use ndjson or csv");
+        };
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(MediaType contentType, String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    private void writeNdjson(OutputStream outputStream) throws IOException {
+        try (JsonGenerator json = objectMapper.createGenerator(outputStream)) {
+            // each row ends with a newline, instead of Jackson's default space between root values
+            json.setRootValueSeparator(null);
+            registrationService.streamAllRegistrations(registration -> {
+                try {
+                    json.writeObject(registration);
+                    json.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeCsv(OutputStream outputStream) throws IOException {
+        try (Writer csv = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+            csv.write("registrationID,studentId,studentName,courseId,courseTitle\n");
+            registrationService.streamAllRegistrations(registration -> {
+                try {
+                    csv.write(registration.getRegistrationID() + "," + registration.getStudentId() + ","
+                            + Csv.field(registration.getStudentName()) + "," + registration.getCourseId() + ","
+                            + Csv.field(registration.getCourseTitle()) + "\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
 
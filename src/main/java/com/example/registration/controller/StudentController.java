@@ -1,14 +1,24 @@
 package com.example.registration.controller;
 
 // Add this new import
+import com.example.registration.dto.StudentImportResultDTO;
 import com.example.registration.dto.StudentResponseDTO;
 import com.example.registration.model.Student;
 import com.example.registration.service.StudentService;
+import com.example.registration.util.Csv;
+import com.example.registration.util.ETags;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors; // Add this import
 
 @RestController
@@ -16,19 +26,75 @@ import java.util.stream.Collectors; // Add this import
 public class StudentController {
 
     private final StudentService studentService;
+    private final ObjectMapper objectMapper;
 
-    public StudentController(StudentService studentService) {
+    public StudentController(StudentService studentService, ObjectMapper objectMapper) {
         this.studentService = studentService;
+        this.objectMapper = objectMapper;
     }
 
+    // completes asynchronously, the request thread is released while the password is hashed
     @PostMapping
-    public ResponseEntity<Student> createStudent(@RequestBody Student student) {
-        Student createdStudent = studentService.createStudent(student);
-    // old way of returning a response
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdStudent);
+    public CompletableFuture<ResponseEntity<Student>> createStudent(@RequestBody Student student) {
+        return studentService.createStudent(student)
+                // old way of returning a response
+                .thenApply(createdStudent -> ResponseEntity.status(HttpStatus.CREATED).body(createdStudent));
     }
 
 
+    // many students at once from CSV with a "name,email,password" header, with a result per data row
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<List<StudentImportResultDTO>> importStudentsCsv(@RequestBody String csv) {
+        List<List<String>> records = Csv.parse(csv);
+        if (records.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header row is missing");
+        }
+        List<String> header = records.get(0).stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+        int name = header.indexOf("name");
+        int email = header.indexOf("email");
+        int password = header.indexOf("password");
+        if (email < 0 || password < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must have email and password columns");
+        }
+
+        List<Student> students = new ArrayList<>();
+        for (List<String> record : records.subList(1, records.size())) {
+            // a row with the wrong number of fields is reported, not guessed at
+            if (record.size() != header.size()) {
+                students.add(null);
+                continue;
+            }
+            Student student = new Student();
+            student.setName(name < 0 ? null : record.get(name));
+            student.setEmail(record.get(email));
+            student.setPassword(record.get(password));
+            students.add(student);
+        }
+        return ResponseEntity.ok(studentService.importStudents(students));
+    }
+
+    // the same from newline-delimited JSON, one {"name", "email", "password"} object per line
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<List<StudentImportResultDTO>> importStudentsNdjson(@RequestBody String ndjson) {
+        List<Student> students = new ArrayList<>();
+        for (String line : ndjson.split("\r?\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Student student = objectMapper.readValue(line, Student.class);
+                // ids are always generated
+                if (student != null) {
+                    student.setId(null);
+                }
+                students.add(student);
+            } catch (JsonProcessingException e) {
+                students.add(null);
+            }
+        }
+        return ResponseEntity.ok(studentService.importStudents(students));
+    }
+
     // list of DTOs of Students
     @GetMapping
     public List<StudentResponseDTO> getAllStudents() {
@@ -37,20 +103,22 @@ public class StudentController {
                 .collect(Collectors.toList());
     }
 
+    // the student comes from the second-level cache, a 304 only compares its version and writes no body
     @GetMapping("/{id}")
-    public ResponseEntity<StudentResponseDTO> getStudentById(@PathVariable Integer id) {
+    public ResponseEntity<StudentResponseDTO> getStudentById(@PathVariable Integer id, WebRequest request) {
         Student student = studentService.getStudentById(id);
-        return ResponseEntity.ok(new StudentResponseDTO(student));
+        String eTag = ETags.weak(student.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(new StudentResponseDTO(student));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<StudentResponseDTO> updateStudent(@PathVariable Integer id, @RequestBody Student updatedStudentDetails) {
-        Student updatedStudent = studentService.updateStudent(id, updatedStudentDetails);
-
-        // convert the updated entity to a DTO before returning
-        StudentResponseDTO responseDto = new StudentResponseDTO(updatedStudent);
-
-        return ResponseEntity.ok(responseDto);
+    public CompletableFuture<ResponseEntity<StudentResponseDTO>> updateStudent(@PathVariable Integer id, @RequestBody Student updatedStudentDetails) {
+        return studentService.updateStudent(id, updatedStudentDetails)
+                // convert the updated entity to a DTO before returning
+                .thenApply(updatedStudent -> ResponseEntity.ok(new StudentResponseDTO(updatedStudent)));
     }
 
     @DeleteMapping("/{id}")
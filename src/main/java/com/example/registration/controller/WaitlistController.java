@@ -0,0 +1,39 @@
+package com.example.registration.controller;
+
+import com.example.registration.dto.RegistrationResponseDTO;
+import com.example.registration.dto.WaitlistEntryDTO;
+import com.example.registration.service.WaitlistService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/waitlist")
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    public WaitlistController(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    // takes the same studentId and courseId body as POST /api/registrations
+    @PostMapping
+    public ResponseEntity<WaitlistEntryDTO> joinWaitlist(@RequestBody RegistrationResponseDTO requestDto) {
+        WaitlistEntryDTO responseDto = waitlistService.joinWaitlist(requestDto);
+        return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+    }
+
+    @GetMapping("/courseid/{id}")
+    public List<WaitlistEntryDTO> getWaitlistByCourseId(@PathVariable Integer id) {
+        return waitlistService.getWaitlistByCourseId(id);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Integer id) {
+        waitlistService.leaveWaitlist(id);
+        return ResponseEntity.noContent().build();
+    }
+}
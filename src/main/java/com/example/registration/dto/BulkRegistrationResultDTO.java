@@ -0,0 +1,78 @@
+package com.example.registration.dto;
+
+// Outcome of one (studentId, courseId) pair sent to POST /api/registrations/bulk
+public class BulkRegistrationResultDTO {
+
+    // position of the pair in the request list
+    private int index;
+    private Integer studentId;
+    private Integer courseId;
+    // HTTP status the pair would have got as a single POST /api/registrations
+    private int status;
+    // set when the registration was created
+    private Integer registrationID;
+    // set when it was not
+    private String error;
+
+
+    public BulkRegistrationResultDTO() {
+    }
+
+    public BulkRegistrationResultDTO(int index, RegistrationResponseDTO request, int status, Integer registrationID, String error) {
+        this.index = index;
+        this.studentId = request.getStudentId();
+        this.courseId = request.getCourseId();
+        this.status = status;
+        this.registrationID = registrationID;
+        this.error = error;
+    }
+
+    // getters and setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Integer getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Integer studentId) {
+        this.studentId = studentId;
+    }
+
+    public Integer getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Integer courseId) {
+        this.courseId = courseId;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Integer getRegistrationID() {
+        return registrationID;
+    }
+
+    public void setRegistrationID(Integer registrationID) {
+        this.registrationID = registrationID;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
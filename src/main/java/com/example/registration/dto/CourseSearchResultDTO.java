@@ -0,0 +1,55 @@
+package com.example.registration.dto;
+
+
+public class CourseSearchResultDTO {
+
+    private Integer courseId;
+    private String title;
+    private String description;
+    // relevance, higher is better, only comparable within one search
+    private double score;
+
+
+    public CourseSearchResultDTO() {
+    }
+
+    public CourseSearchResultDTO(Integer courseId, String title, String description, double score) {
+        this.courseId = courseId;
+        this.title = title;
+        this.description = description;
+        this.score = score;
+    }
+
+    // getters and setters
+    public Integer getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Integer courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
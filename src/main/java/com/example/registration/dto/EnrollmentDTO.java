@@ -0,0 +1,56 @@
+package com.example.registration.dto;
+
+
+public class EnrollmentDTO {
+
+    private Integer courseId;
+    private int enrolled;
+    // null when the course has no capacity limit, and so does seatsLeft
+    private Integer capacity;
+    private Integer seatsLeft;
+
+
+    public EnrollmentDTO() {
+    }
+
+    // used by the projection queries in CourseRepository
+    public EnrollmentDTO(Integer courseId, int enrolled, Integer capacity) {
+        this.courseId = courseId;
+        this.enrolled = enrolled;
+        this.capacity = capacity;
+        this.seatsLeft = capacity == null ? null : Math.max(capacity - enrolled, 0);
+    }
+
+    // getters and setters
+    public Integer getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Integer courseId) {
+        this.courseId = courseId;
+    }
+
+    public int getEnrolled() {
+        return enrolled;
+    }
+
+    public void setEnrolled(int enrolled) {
+        this.enrolled = enrolled;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public Integer getSeatsLeft() {
+        return seatsLeft;
+    }
+
+    public void setSeatsLeft(Integer seatsLeft) {
+        this.seatsLeft = seatsLeft;
+    }
+}
@@ -15,12 +15,22 @@ public class RegistrationResponseDTO {
     public RegistrationResponseDTO() {
     }
 
+    // built from the registration's own columns, the lazy student and course are never loaded
     public RegistrationResponseDTO(Registration registration) {
         this.registrationID = registration.getRegistrationID();
-        this.studentId = registration.getStudent().getId();
-        this.studentName = registration.getStudent().getName();
-        this.courseId = registration.getCourse().getId();
-        this.courseTitle = registration.getCourse().getTitle();
+        this.studentId = registration.getStudentId();
+        this.studentName = registration.getStudentName();
+        this.courseId = registration.getCourseId();
+        this.courseTitle = registration.getCourseName();
+    }
+
+    // used by the projection queries in RegistrationRepository
+    public RegistrationResponseDTO(Integer registrationID, Integer studentId, String studentName, Integer courseId, String courseTitle) {
+        this.registrationID = registrationID;
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.courseId = courseId;
+        this.courseTitle = courseTitle;
     }
 
 
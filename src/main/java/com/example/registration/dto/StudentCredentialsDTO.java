@@ -0,0 +1,36 @@
+package com.example.registration.dto;
+
+
+public class StudentCredentialsDTO {
+
+    private String email;
+    // the BCrypt hash
+    private String password;
+
+
+    public StudentCredentialsDTO() {
+    }
+
+    // used by the projection query in StudentRepository
+    public StudentCredentialsDTO(String email, String password) {
+        this.email = email;
+        this.password = password;
+    }
+
+    // getters and setters
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
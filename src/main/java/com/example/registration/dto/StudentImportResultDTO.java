@@ -0,0 +1,57 @@
+package com.example.registration.dto;
+
+// Outcome of one row sent to POST /api/students/import
+public class StudentImportResultDTO {
+
+    // data row number in the uploaded file, starting at 1 (the CSV header is not counted)
+    private int row;
+    private String email;
+    // HTTP status the row would have got as a single POST /api/students
+    private int status;
+    // set when the row was not imported
+    private String error;
+
+
+    public StudentImportResultDTO() {
+    }
+
+    public StudentImportResultDTO(int row, String email, int status, String error) {
+        this.row = row;
+        this.email = email;
+        this.status = status;
+        this.error = error;
+    }
+
+    // getters and setters
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.registration.dto;
+
+import java.time.Instant;
+
+public class TokenResponseDTO {
+
+    private String token;
+    private String tokenType = "Bearer";
+    private Instant expiresAt;
+
+    public TokenResponseDTO() {
+    }
+
+    public TokenResponseDTO(String token, Instant expiresAt) {
+        this.token = token;
+        this.expiresAt = expiresAt;
+    }
+
+    // getters and setters
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public void setTokenType(String tokenType) {
+        this.tokenType = tokenType;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
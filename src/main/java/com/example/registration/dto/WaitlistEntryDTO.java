@@ -0,0 +1,57 @@
+package com.example.registration.dto;
+
+import com.example.registration.model.WaitlistEntry;
+
+import java.time.Instant;
+
+public class WaitlistEntryDTO {
+
+    private Integer waitlistID;
+    private Integer studentId;
+    private Integer courseId;
+    private Instant createdAt;
+
+
+    public WaitlistEntryDTO() {
+    }
+
+    public WaitlistEntryDTO(WaitlistEntry entry) {
+        this.waitlistID = entry.getWaitlistID();
+        this.studentId = entry.getStudentId();
+        this.courseId = entry.getCourseId();
+        this.createdAt = entry.getCreatedAt();
+    }
+
+    // getters and setters
+    public Integer getWaitlistID() {
+        return waitlistID;
+    }
+
+    public void setWaitlistID(Integer waitlistID) {
+        this.waitlistID = waitlistID;
+    }
+
+    public Integer getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Integer studentId) {
+        this.studentId = studentId;
+    }
+
+    public Integer getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Integer courseId) {
+        this.courseId = courseId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.registration.event;
+
+import com.example.registration.model.Course;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+// JPA entity listener on Course, turns every write into a CourseChangedEvent
+// hooking the entity instead of the service means saves made straight through CourseRepository are seen too
+public class CourseChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // created by Hibernate through Spring, so the publisher is injected
+    public CourseChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void courseSaved(Course course) {
+        eventPublisher.publishEvent(new CourseChangedEvent(course, false));
+    }
+
+    @PostRemove
+    public void courseRemoved(Course course) {
+        eventPublisher.publishEvent(new CourseChangedEvent(course, true));
+    }
+}
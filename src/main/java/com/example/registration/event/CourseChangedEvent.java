@@ -0,0 +1,8 @@
+package com.example.registration.event;
+
+import com.example.registration.model.Course;
+
+// Published whenever a course row is inserted, updated or deleted through JPA
+// deleted is true when the course no longer exists
+public record CourseChangedEvent(Course course, boolean deleted) {
+}
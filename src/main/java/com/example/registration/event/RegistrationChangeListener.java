@@ -0,0 +1,27 @@
+package com.example.registration.event;
+
+import com.example.registration.model.Registration;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.context.ApplicationEventPublisher;
+
+// JPA entity listener on Registration, turns every insert and delete into a RegistrationChangedEvent
+public class RegistrationChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // created by Hibernate through Spring, so the publisher is injected
+    public RegistrationChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void registrationSaved(Registration registration) {
+        eventPublisher.publishEvent(new RegistrationChangedEvent(registration, false));
+    }
+
+    @PostRemove
+    public void registrationRemoved(Registration registration) {
+        eventPublisher.publishEvent(new RegistrationChangedEvent(registration, true));
+    }
+}
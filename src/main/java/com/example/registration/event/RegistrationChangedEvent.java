@@ -0,0 +1,8 @@
+package com.example.registration.event;
+
+import com.example.registration.model.Registration;
+
+// Published whenever a registration row is inserted or deleted through JPA
+// deleted is true when the registration no longer exists
+public record RegistrationChangedEvent(Registration registration, boolean deleted) {
+}
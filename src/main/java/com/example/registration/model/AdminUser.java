@@ -7,10 +7,12 @@ import java.util.Collections;
 
 public class AdminUser implements UserDetails {
 
-    private final Student student;
+    private final String email;
+    private final String password;
 
-    public AdminUser(Student student) {
-        this.student = student;
+    public AdminUser(String email, String password) {
+        this.email = email;
+        this.password = password;
     }
 
     @Override
@@ -21,13 +23,13 @@ public class AdminUser implements UserDetails {
 
     @Override
     public String getPassword() {
-        return student.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
         // using student email as username
-        return student.getEmail();
+        return email;
     }
 
     // user account has not expired
@@ -1,11 +1,24 @@
 package com.example.registration.model;
 
+import com.example.registration.config.EntityCacheConfig;
+import com.example.registration.event.CourseChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@EntityListeners(CourseChangeListener.class)
+// in the second-level cache, findById of a hot course is answered from memory
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.COURSE_REGION)
 public class Course {
 
     // table attributes
@@ -15,6 +28,20 @@ public class Course {
     private String title;
     private String description;
 
+    // most students that can register, null means no limit
+    private Integer capacity;
+
+    // registrations currently holding a seat
+    // only ever changed by the atomic updates in CourseRepository, never written from this entity
+    // those updates leave the second-level cache alone, so a cached course's count can be behind the row
+    @Column(name = "seats_taken", nullable = false, insertable = false, updatable = false, columnDefinition = "integer default 0 not null")
+    private int seatsTaken;
+
+    // bumped by every update through JPA, the course's ETag
+    // the seat counter updates don't touch it, seatsTaken isn't part of the course's JSON
+    @Version
+    private long version;
+
     // getters
     public Integer getId() {
         return course_id;
@@ -28,6 +55,23 @@ public class Course {
         return description;
     }
 
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    // as of when the course was loaded or cached, not part of the course's JSON since it changes with every registration
+    // decisions on free seats read the row instead, see CourseRepository.findEnrollment
+    @JsonIgnore
+    public int getSeatsTaken() {
+        return seatsTaken;
+    }
+
+    // sent as the ETag header instead of in the body
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
     // setters
     public void setId(Integer course_id) {
         this.course_id = course_id;
@@ -40,4 +84,8 @@ public class Course {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
 }
\ No newline at end of file
@@ -1,14 +1,22 @@
 package com.example.registration.model;
 
+import com.example.registration.event.RegistrationChangeListener;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "registrations")
+@Table(name = "registrations", uniqueConstraints = @UniqueConstraint(
+        name = Registration.STUDENT_COURSE_CONSTRAINT, columnNames = {"student_id", "course_id"}))
+@EntityListeners(RegistrationChangeListener.class)
 public class Registration {
 
+    // a student can only be registered for a course once
+    public static final String STUDENT_COURSE_CONSTRAINT = "uk_registrations_student_course";
+
     // table attributes
+    // ids come from a sequence in blocks of 50 so inserts can be batched, IDENTITY would force one insert per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "registrations_seq")
+    @SequenceGenerator(name = "registrations_seq", sequenceName = "registrations_seq", allocationSize = 50)
     @Column(name = "registration_id")
     private Integer registration_id;
 
@@ -25,6 +33,10 @@ public class Registration {
     @JoinColumn(name = "student_id", referencedColumnName = "student_id")
     private Student student;
 
+    // the same column as student, mapped again read only so the id can be used without loading the student
+    @Column(name = "student_id", insertable = false, updatable = false)
+    private Integer studentId;
+
     // taken from course table
     @Column(name = "course_name")
     private String courseName;
@@ -34,6 +46,26 @@ public class Registration {
     @JoinColumn(name = "course_id", referencedColumnName = "course_id")
     private Course course;
 
+    // the same column as course, mapped again read only so the id can be used without loading the course
+    @Column(name = "course_id", insertable = false, updatable = false)
+    private Integer courseId;
+
+    // bumped by every update, including the copies of a renamed student or course in RegistrationRepository
+    @Version
+    private long version;
+
+    public Registration() {
+    }
+
+    // a registration of the student for the course, with the student and course fields copied over
+    public Registration(Student student, Course course) {
+        setStudent(student);
+        setCourse(course);
+        this.studentName = student.getName();
+        this.studentEmail = student.getEmail();
+        this.courseName = course.getTitle();
+    }
+
     // getters
     public Integer getRegistrationID() {
         return registration_id;
@@ -51,6 +83,10 @@ public class Registration {
         return student;
     }
 
+    public Integer getStudentId() {
+        return studentId;
+    }
+
     public String getCourseName() {
         return courseName;
     }
@@ -59,6 +95,14 @@ public class Registration {
         return course;
     }
 
+    public Integer getCourseId() {
+        return courseId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
     // setters
     public void setRegistrationID(Integer registrationID) {
         this.registration_id = registrationID;
@@ -74,6 +118,7 @@ public class Registration {
 
     public void setStudent(Student student) {
         this.student = student;
+        this.studentId = student == null ? null : student.getId();
     }
 
     public void setCourseName(String courseName) {
@@ -82,5 +127,6 @@ public class Registration {
 
     public void setCourse(Course course) {
         this.course = course;
+        this.courseId = course == null ? null : course.getId();
     }
 }
\ No newline at end of file
@@ -1,13 +1,22 @@
 package com.example.registration.model;
 
+import com.example.registration.config.EntityCacheConfig;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Setter;
 
 @Entity
+// in the second-level cache, looked up on every registration and every authenticated request
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.STUDENT_REGION)
 public class Student {
 
 
@@ -19,6 +28,10 @@ public class Student {
     private String email;
     private String password;
 
+    // bumped by every update through JPA, the student's ETag
+    @Version
+    private long version;
+
 
     // getters
     public Integer getId() {
@@ -37,6 +50,12 @@ public class Student {
         return password;
     }
 
+    // sent as the ETag header instead of in the body
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
     // setters
     public void setId(Integer student_id) {
         this.student_id = student_id;
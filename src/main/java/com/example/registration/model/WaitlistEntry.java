@@ -0,0 +1,83 @@
+package com.example.registration.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "waitlist_entries", uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "course_id"}))
+public class WaitlistEntry {
+
+    // table attributes
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "waitlist_entries_seq")
+    @SequenceGenerator(name = "waitlist_entries_seq", sequenceName = "waitlist_entries_seq", allocationSize = 50)
+    @Column(name = "waitlist_id")
+    private Integer waitlist_id;
+
+    // the student waiting for a seat
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_id", referencedColumnName = "student_id")
+    private Student student;
+
+    // the same column as student, mapped again read only so the id can be used without loading the student
+    @Column(name = "student_id", insertable = false, updatable = false)
+    private Integer studentId;
+
+    // the course they are waiting for
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "course_id", referencedColumnName = "course_id")
+    private Course course;
+
+    // the same column as course, mapped again read only so the id can be used without loading the course
+    @Column(name = "course_id", insertable = false, updatable = false)
+    private Integer courseId;
+
+    // when the student joined, the waitlist is served oldest first
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // getters
+    public Integer getWaitlistID() {
+        return waitlist_id;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    public Integer getStudentId() {
+        return studentId;
+    }
+
+    public Course getCourse() {
+        return course;
+    }
+
+    public Integer getCourseId() {
+        return courseId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    // setters
+    public void setWaitlistID(Integer waitlistID) {
+        this.waitlist_id = waitlistID;
+    }
+
+    public void setStudent(Student student) {
+        this.student = student;
+        this.studentId = student == null ? null : student.getId();
+    }
+
+    public void setCourse(Course course) {
+        this.course = course;
+        this.courseId = course == null ? null : course.getId();
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
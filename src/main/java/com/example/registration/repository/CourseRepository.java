@@ -1,10 +1,65 @@
 package com.example.registration.repository;
 
+import com.example.registration.dto.EnrollmentDTO;
 import com.example.registration.model.Course;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 // Registration - this repository manages the Registration entity
 // Integer - the primary key of the Registration entity (registrationID)
 @Repository
-public interface CourseRepository extends JpaRepository<Course, Integer> {}
+public interface CourseRepository extends JpaRepository<Course, Integer> {
+
+    // the seat updates below are native SQL declared to touch only this query space, which no entity maps to
+    // a JPQL update of Course would evict every course from the second-level cache, on every registration
+    String SEATS_QUERY_SPACE = "course_seats";
+
+    // takes one seat if the course has one free, returns 1 if it did and 0 if the course is full
+    // the check and the increment are one statement, so concurrent registrations can never go past capacity
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SEATS_QUERY_SPACE))
+    @Query(value = "update course set seats_taken = seats_taken + 1 " +
+            "where course_id = :courseId and (capacity is null or seats_taken < capacity)", nativeQuery = true)
+    int reserveSeat(@Param("courseId") Integer courseId);
+
+    // gives back one seat when a registration is removed
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SEATS_QUERY_SPACE))
+    @Query(value = "update course set seats_taken = seats_taken - 1 where course_id = :courseId and seats_taken > 0",
+            nativeQuery = true)
+    int releaseSeat(@Param("courseId") Integer courseId);
+
+    // takes several seats at once, only for courses locked with findAllByIdForUpdate in the same transaction
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SEATS_QUERY_SPACE))
+    @Query(value = "update course set seats_taken = seats_taken + :seats where course_id = :courseId", nativeQuery = true)
+    int takeSeats(@Param("courseId") Integer courseId, @Param("seats") int seats);
+
+    // loads and row-locks courses until the transaction ends, in id order so two callers can't deadlock
+    // built from the locked rows, never the second-level cache, so their seatsTaken is current
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Course c where c.course_id in :courseIds order by c.course_id")
+    List<Course> findAllByIdForUpdate(@Param("courseIds") Collection<Integer> courseIds);
+
+    // enrollment counts straight from seats_taken, which the seat updates above keep in the registration's transaction
+    // one primary key lookup however many students are registered, and plain reads never wait on the seat updates' row locks
+    @Query("select new com.example.registration.dto.EnrollmentDTO(c.course_id, c.seatsTaken, c.capacity) " +
+            "from Course c where c.course_id = :courseId")
+    Optional<EnrollmentDTO> findEnrollment(@Param("courseId") Integer courseId);
+
+    @Query("select new com.example.registration.dto.EnrollmentDTO(c.course_id, c.seatsTaken, c.capacity) " +
+            "from Course c where c.course_id in :courseIds order by c.course_id")
+    List<EnrollmentDTO> findEnrollments(@Param("courseIds") Collection<Integer> courseIds);
+}
@@ -1,13 +1,22 @@
 package com.example.registration.repository;
 
+import com.example.registration.dto.RegistrationResponseDTO;
 import com.example.registration.model.Course;
 import com.example.registration.model.Registration;
 import com.example.registration.model.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 // Registration - this repository manages the Registration entity
@@ -25,6 +34,64 @@ public interface RegistrationRepository extends JpaRepository<Registration, Inte
     // method to check if a registration exists based on course ID
     boolean existsByCourseId(Integer courseId);
 
+    // method to check if a student is registered for a course
+    boolean existsByStudentIdAndCourseId(Integer studentId, Integer courseId);
+
     // method to find student by their id and return a list of their registrations
     List<Registration> findByStudentId(Integer studentId);
-}
\ No newline at end of file
+
+    // (studentId, courseId) of every registration, read off a JDBC cursor, used to warm RegistrationIndex
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    @Query("select r.studentId, r.courseId from Registration r")
+    Stream<Object[]> streamStudentCourseIds();
+
+    // (studentId, courseId) of the registrations of the given students
+    @Query("select r.studentId, r.courseId from Registration r where r.studentId in :studentIds")
+    List<Object[]> findStudentCourseIdsByStudentIdIn(@Param("studentIds") Collection<Integer> studentIds);
+
+    // the queries below build RegistrationResponseDTOs directly in SQL from the copies of the student name
+    // and course title kept on each registration, so they read the registrations table alone
+
+    // registrations of one student as DTOs
+    @Query("select new com.example.registration.dto.RegistrationResponseDTO(r.registration_id, r.studentId, r.studentName, r.courseId, r.courseName) " +
+            "from Registration r " +
+            "where r.studentId = :studentId order by r.registration_id")
+    List<RegistrationResponseDTO> findDTOsByStudentId(@Param("studentId") Integer studentId);
+
+    // keyset page: the next registrations after the given id, in id order
+    @Query("select new com.example.registration.dto.RegistrationResponseDTO(r.registration_id, r.studentId, r.studentName, r.courseId, r.courseName) " +
+            "from Registration r " +
+            "where r.registration_id > :afterId order by r.registration_id")
+    List<RegistrationResponseDTO> findDTOPageAfter(@Param("afterId") Integer afterId, Limit limit);
+
+    // every registration in id order, read off a JDBC cursor 500 rows at a time instead of loaded all at once
+    // must be consumed inside a transaction, postgres only uses a cursor when autocommit is off
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.registration.dto.RegistrationResponseDTO(r.registration_id, r.studentId, r.studentName, r.courseId, r.courseName) " +
+            "from Registration r " +
+            "order by r.registration_id")
+    Stream<RegistrationResponseDTO> streamAllDTOs();
+
+    // the copies below are kept in step with renames by one set-based update each, see StudentService and CourseRenamePropagator
+
+    // copy a student's new name and email onto all of their registrations
+    @Modifying
+    @Query("update Registration r set r.studentName = :name, r.studentEmail = :email, r.version = r.version + 1 where r.studentId = :studentId")
+    int updateStudentCopies(@Param("studentId") Integer studentId, @Param("name") String name, @Param("email") String email);
+
+    // copy a course's new title onto all of its registrations
+    @Modifying
+    @Query("update Registration r set r.courseName = :title, r.version = r.version + 1 where r.courseId = :courseId")
+    int updateCourseCopies(@Param("courseId") Integer courseId, @Param("title") String title);
+
+    // ids of a course's registrations after the given id, in id order, to split a large course into chunks
+    @Query("select r.registration_id from Registration r where r.courseId = :courseId and r.registration_id > :afterId order by r.registration_id")
+    List<Integer> findIdsByCourseIdAfter(@Param("courseId") Integer courseId, @Param("afterId") Integer afterId, Limit limit);
+
+    // copy the course's current title onto its registrations with ids in (afterId, toId]
+    // reads the title in the statement itself, so a chunk never writes back a title renamed again since
+    @Modifying
+    @Query("update Registration r set r.courseName = (select c.title from Course c where c.course_id = r.courseId), r.version = r.version + 1 " +
+            "where r.courseId = :courseId and r.registration_id > :afterId and r.registration_id <= :toId")
+    int updateCourseCopies(@Param("courseId") Integer courseId, @Param("afterId") Integer afterId, @Param("toId") Integer toId);
+}
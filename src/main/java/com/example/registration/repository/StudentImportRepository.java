@@ -0,0 +1,12 @@
+package com.example.registration.repository;
+
+import com.example.registration.model.Student;
+
+import java.util.List;
+
+// Bulk insert for POST /api/students/import, mixed into StudentRepository
+public interface StudentImportRepository {
+
+    // inserts every student with plain SQL, no ids are read back and no entities are attached
+    void insertAll(List<Student> students);
+}
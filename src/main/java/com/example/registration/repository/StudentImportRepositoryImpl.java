@@ -0,0 +1,75 @@
+package com.example.registration.repository;
+
+import com.example.registration.model.Student;
+import com.example.registration.util.Csv;
+import org.postgresql.PGConnection;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+// On PostgreSQL the rows are streamed in with COPY, one round trip for the whole import
+// any other database (H2 in the load harness and benchmarks) gets batched inserts
+class StudentImportRepositoryImpl implements StudentImportRepository {
+
+    private static final String COPY_SQL = "COPY student (name, email, password) FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_SQL = "insert into student (name, email, password) values (?, ?, ?)";
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    StudentImportRepositoryImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<Student> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        // the transaction's connection, so the rows commit or roll back with it
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                copy(connection.unwrap(PGConnection.class), students);
+                return;
+            }
+        } catch (SQLException e) {
+            throw new SQLErrorCodeSQLExceptionTranslator(dataSource).translate("COPY student", COPY_SQL, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, students, INSERT_BATCH_SIZE, (statement, student) -> {
+            statement.setString(1, student.getName());
+            statement.setString(2, student.getEmail());
+            statement.setString(3, student.getPassword());
+        });
+    }
+
+    private static void copy(PGConnection connection, List<Student> students) throws SQLException {
+        StringBuilder csv = new StringBuilder(students.size() * 100);
+        for (Student student : students) {
+            csv.append(Csv.field(student.getName())).append(',')
+                    .append(Csv.field(student.getEmail())).append(',')
+                    .append(Csv.field(student.getPassword())).append('\n');
+        }
+        try (Reader rows = new StringReader(csv.toString())) {
+            connection.getCopyAPI().copyIn(COPY_SQL, rows);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("COPY into student failed", e);
+        }
+    }
+}
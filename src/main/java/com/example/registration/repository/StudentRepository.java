@@ -1,16 +1,42 @@
 package com.example.registration.repository;
 
+import com.example.registration.config.EntityCacheConfig;
+import com.example.registration.dto.StudentCredentialsDTO;
 import com.example.registration.model.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 // Student - this repository manages the Student entity
 // Integer - the primary key of the Student entity (studentID)
+// StudentImportRepository - bulk insert used by the student import
 @Repository
-public interface StudentRepository extends JpaRepository<Student, Integer> {
+public interface StudentRepository extends JpaRepository<Student, Integer>, StudentImportRepository {
     // finding a potential student by email
     Optional<Student> findByEmail(String email);
 
+    // the email and password hash a login or HTTP Basic request is checked against, kept in the query cache
+    // the cached result holds the values themselves rather than an id to look up in the student region,
+    // so it expires on the region's own short expiry, which bounds how long a password change or delete
+    // made on another instance goes unseen here
+    // Hibernate drops it whenever a student is written through JPA, the import's COPY has to evict it itself
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = EntityCacheConfig.STUDENT_BY_EMAIL_REGION)
+    })
+    @Query("select new com.example.registration.dto.StudentCredentialsDTO(s.email, s.password) from Student s where s.email = :email")
+    Optional<StudentCredentialsDTO> findCredentialsByEmail(@Param("email") String email);
+
+    // which of these emails are already taken, only the emails are read
+    @Query("select s.email from Student s where s.email in :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+
 }
\ No newline at end of file
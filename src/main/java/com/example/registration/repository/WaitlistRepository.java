@@ -0,0 +1,66 @@
+package com.example.registration.repository;
+
+import com.example.registration.model.WaitlistEntry;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+// WaitlistEntry - this repository manages the WaitlistEntry entity
+// Integer - the primary key of the WaitlistEntry entity (waitlistID)
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Integer> {
+
+    // check if a student is already waiting for a course
+    boolean existsByStudentIdAndCourseId(Integer studentId, Integer courseId);
+
+    // check if anyone is waiting for a course
+    boolean existsByCourseId(Integer courseId);
+
+    // the waitlist of a course, oldest first
+    @Query("select w from WaitlistEntry w where w.courseId = :courseId order by w.createdAt, w.waitlist_id")
+    List<WaitlistEntry> findByCourseIdInOrder(@Param("courseId") Integer courseId);
+
+    // the students first in line for a course, without loading or locking their entries
+    @Query("select w.studentId from WaitlistEntry w where w.courseId = :courseId order by w.createdAt, w.waitlist_id")
+    List<Integer> findStudentIdsInOrder(@Param("courseId") Integer courseId, Limit limit);
+
+    // which of the given courses have someone waiting
+    @Query("select distinct w.courseId from WaitlistEntry w where w.courseId in :courseIds")
+    List<Integer> findCourseIdsWithWaitlist(@Param("courseIds") Collection<Integer> courseIds);
+
+    // the next students in line for a course, row-locked until the transaction ends
+    // rows another promoter already holds are skipped instead of waited on (lock timeout -2 is SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select w from WaitlistEntry w where w.courseId = :courseId order by w.createdAt, w.waitlist_id")
+    List<WaitlistEntry> findNextForUpdate(@Param("courseId") Integer courseId, Limit limit);
+
+    // courses that have someone waiting and a free seat
+    @Query("select distinct w.courseId from WaitlistEntry w, Course c " +
+            "where c.course_id = w.courseId and (c.capacity is null or c.seatsTaken < c.capacity)")
+    List<Integer> findCourseIdsWithFreeSeats();
+
+    // remove everything a student or course is waiting on, used before deleting them
+    @Modifying
+    @Query("delete from WaitlistEntry w where w.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") Integer studentId);
+
+    @Modifying
+    @Query("delete from WaitlistEntry w where w.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Integer courseId);
+
+    // take a student out of one course's line, once they got a seat
+    @Modifying
+    @Query("delete from WaitlistEntry w where w.studentId = :studentId and w.courseId = :courseId")
+    int deleteByStudentIdAndCourseId(@Param("studentId") Integer studentId, @Param("courseId") Integer courseId);
+}
@@ -2,12 +2,14 @@ package com.example.registration.service;
 
 import com.example.registration.model.AdminUser;
 import com.example.registration.repository.StudentRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 public class AdminUserService implements UserDetailsService {
 
     private final StudentRepository studentRepository;
@@ -20,10 +22,10 @@ public class AdminUserService implements UserDetailsService {
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         // username will be the student's email
         return studentRepository
-                // returns Optional<Student>
-                .findByEmail(username)
+                // returns Optional<StudentCredentialsDTO>, only the email and password hash are read
+                .findCredentialsByEmail(username)
                 // take in the
-                .map(AdminUser::new)
+                .map(credentials -> new AdminUser(credentials.getEmail(), credentials.getPassword()))
                 // if no student is found in the database
                 .orElseThrow(() -> new UsernameNotFoundException("Email not found: " + username));
     }
@@ -0,0 +1,130 @@
+package com.example.registration.service;
+
+import com.example.registration.dto.EnrollmentDTO;
+import com.example.registration.model.Course;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+// Copies a renamed course's title onto its registrations
+// most courses are renamed with one update in the caller's transaction, so the registrations change with the course
+// very large courses are copied after the rename commits, in chunks of their own transactions, so the rename
+// doesn't hold row locks on every registration of the course until it commits
+// cached student schedules carry course titles too, they are all dropped once the new title is on the registrations
+// a chunked copy that fails is logged and run again later, see retryFailed
+@Component
+public class CourseRenamePropagator {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseRenamePropagator.class);
+
+    private final RegistrationRepository registrationRepo;
+    private final CourseRepository courseRepo;
+    private final TransactionTemplate transaction;
+    private final Executor taskExecutor;
+    private final StudentScheduleCache scheduleCache;
+
+    // courses whose chunked copy failed part way, for retryFailed
+    private final Set<Integer> failedCourseIds = ConcurrentHashMap.newKeySet();
+
+    // most registrations copied in the caller's transaction, larger courses are copied in chunks
+    private final int syncLimit;
+    // registrations copied per chunk
+    private final int chunkSize;
+
+    public CourseRenamePropagator(RegistrationRepository registrationRepo, CourseRepository courseRepo,
+                                  PlatformTransactionManager transactionManager,
+                                  @Qualifier("applicationTaskExecutor") Executor taskExecutor, StudentScheduleCache scheduleCache,
+                                  @Value("${registration.rename.sync-limit:10000}") int syncLimit,
+                                  @Value("${registration.rename.chunk-size:5000}") int chunkSize) {
+        this.registrationRepo = registrationRepo;
+        this.courseRepo = courseRepo;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.scheduleCache = scheduleCache;
+        this.syncLimit = syncLimit;
+        this.chunkSize = chunkSize;
+    }
+
+    // must be called inside the transaction that renames the course
+    public void courseRenamed(Course course) {
+        // every registration holds a seat, so the seat count is the number of rows to update
+        // read from the row, the renamed course may have come from a cache with an old count
+        int registrations = courseRepo.findEnrollment(course.getId()).map(EnrollmentDTO::getEnrolled).orElse(0);
+        if (registrations <= syncLimit) {
+            registrationRepo.updateCourseCopies(course.getId(), course.getTitle());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictSchedules();
+                }
+            });
+            return;
+        }
+        Integer courseId = course.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                taskExecutor.execute(() -> copyInChunks(courseId));
+            }
+        });
+    }
+
+    // a chunk that fails leaves the rest of the course uncopied, so the course is recorded and copied again
+    // from the start by retryFailed, every chunk reads the current title so copying twice does no harm
+    void copyInChunks(Integer courseId) {
+        try {
+            copyChunks(courseId);
+        } catch (RuntimeException e) {
+            log.warn("Copying the title of course {} onto its registrations failed, retrying", courseId, e);
+            failedCourseIds.add(courseId);
+        }
+    }
+
+    // courses recorded in memory only, a restart before the retry leaves them to the log above
+    // the copies run on the task executor like the first attempt, the scheduler thread is shared with
+    // waitlist promotion and the replica lag check, and a large course would hold them up for the whole copy
+    @Scheduled(fixedDelayString = "${registration.rename.retry-delay-ms:30000}")
+    public void retryFailed() {
+        for (Integer courseId : failedCourseIds) {
+            failedCourseIds.remove(courseId);
+            taskExecutor.execute(() -> copyInChunks(courseId));
+        }
+    }
+
+    // walks the course's registrations in id order, each chunk reads the title the course has at that moment
+    private void copyChunks(Integer courseId) {
+        Integer afterId = 0;
+        while (true) {
+            List<Integer> ids = registrationRepo.findIdsByCourseIdAfter(courseId, afterId, Limit.of(chunkSize));
+            if (ids.isEmpty()) {
+                return;
+            }
+            Integer fromId = afterId;
+            Integer toId = ids.getLast();
+            transaction.executeWithoutResult(status -> registrationRepo.updateCourseCopies(courseId, fromId, toId));
+            evictSchedules();
+            afterId = toId;
+        }
+    }
+
+    // the schedules are keyed by student, the course's students aren't known here, so all of them go
+    // renames are rare enough that this costs far less than tracking which students hold which course
+    private void evictSchedules() {
+        scheduleCache.evictAll();
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.registration.service;
+
+import com.example.registration.dto.CourseSearchResultDTO;
+import com.example.registration.event.CourseChangedEvent;
+import com.example.registration.model.Course;
+import com.example.registration.repository.CourseRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// In-memory inverted index over course titles and descriptions, so searches never run SQL
+// terms are kept sorted, so every query word also matches the terms it is a prefix of ("prog" finds "programming")
+// results must match every query word and are ranked by how rare the matched terms are, with title matches
+// counting more than description matches and whole words more than prefixes
+// kept in step with courses from CourseChangedEvent, like the course caches, so it only knows about
+// writes committed through this instance
+@Component
+public class CourseSearchIndex implements SmartInitializingSingleton {
+
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    // term -> ids of the courses containing it
+    private final ConcurrentSkipListMap<String, Set<Integer>> postings = new ConcurrentSkipListMap<>();
+    // course id -> what the index knows about the course
+    private final ConcurrentHashMap<Integer, IndexedCourse> courses = new ConcurrentHashMap<>();
+
+    private final CourseRepository courseRepo;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CourseSearchIndex(CourseRepository courseRepo, PlatformTransactionManager transactionManager) {
+        this.courseRepo = courseRepo;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // a course as indexed: its text for the results and the count of each term in the title and the description
+    private record IndexedCourse(Integer id, String title, String description,
+                                 Map<String, Integer> titleTerms, Map<String, Integer> descriptionTerms) {
+
+        static IndexedCourse of(Course course) {
+            return new IndexedCourse(course.getId(), course.getTitle(), course.getDescription(),
+                    termCounts(course.getTitle()), termCounts(course.getDescription()));
+        }
+    }
+
+    // load every course before the web server starts taking requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        readOnlyTransaction.executeWithoutResult(status -> courseRepo.findAll().forEach(this::put));
+    }
+
+    // keep the index in step with courses once they commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void courseChanged(CourseChangedEvent event) {
+        if (event.deleted()) {
+            remove(event.course().getId());
+        } else {
+            put(event.course());
+        }
+    }
+
+    // courses matching every word of the query, best first
+    public List<CourseSearchResultDTO> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, Double> scores = null;
+        for (String word : words) {
+            Map<Integer, Double> wordScores = score(word);
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                // a course has to match every word, keep the ones that matched this one too
+                Map<Integer, Double> matched = wordScores;
+                scores.keySet().retainAll(matched.keySet());
+                scores.replaceAll((id, score) -> score + matched.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<CourseSearchResultDTO> results = new ArrayList<>();
+        scores.forEach((id, score) -> {
+            IndexedCourse course = courses.get(id);
+            if (course != null) {
+                results.add(new CourseSearchResultDTO(id, course.title(), course.description(), score));
+            }
+        });
+        results.sort(Comparator.comparingDouble(CourseSearchResultDTO::getScore).reversed()
+                .thenComparing(CourseSearchResultDTO::getCourseId));
+        return results.size() > limit ? List.copyOf(results.subList(0, limit)) : results;
+    }
+
+    // score of every course with a term the word equals or is a prefix of
+    // a course matching several such terms counts its best one
+    private Map<Integer, Double> score(String word) {
+        Map<Integer, Double> scores = new HashMap<>();
+        NavigableMap<String, Set<Integer>> matches = postings.subMap(word, true, word + Character.MAX_VALUE, true);
+        int total = Math.max(courses.size(), 1);
+        matches.forEach((term, ids) -> {
+            // rarer terms say more about a course, the usual idf
+            double idf = Math.log(1 + (total - ids.size() + 0.5) / (ids.size() + 0.5));
+            double match = term.equals(word) ? 1.0 : PREFIX_WEIGHT;
+            for (Integer id : ids) {
+                IndexedCourse course = courses.get(id);
+                if (course == null) {
+                    continue;
+                }
+                double weight = TITLE_WEIGHT * saturate(course.titleTerms().getOrDefault(term, 0))
+                        + DESCRIPTION_WEIGHT * saturate(course.descriptionTerms().getOrDefault(term, 0));
+                scores.merge(id, idf * match * weight, Math::max);
+            }
+        });
+        return scores;
+    }
+
+    // the first occurrence of a term counts the most, later ones less and less
+    private static double saturate(int count) {
+        return count / (count + 1.0);
+    }
+
+    // writers are serialized so a term's posting set is never dropped while another course is being added to it
+    // searches run alongside without locking
+    private synchronized void put(Course course) {
+        if (course.getId() == null) {
+            return;
+        }
+        IndexedCourse indexed = IndexedCourse.of(course);
+        IndexedCourse previous = courses.put(course.getId(), indexed);
+        if (previous != null) {
+            unlink(previous);
+        }
+        link(indexed);
+    }
+
+    private synchronized void remove(Integer courseId) {
+        if (courseId == null) {
+            return;
+        }
+        IndexedCourse previous = courses.remove(courseId);
+        if (previous != null) {
+            unlink(previous);
+        }
+    }
+
+    private void link(IndexedCourse course) {
+        for (String term : terms(course)) {
+            postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(course.id());
+        }
+    }
+
+    private void unlink(IndexedCourse course) {
+        for (String term : terms(course)) {
+            Set<Integer> ids = postings.get(term);
+            if (ids == null) {
+                continue;
+            }
+            // a course that is still indexed under this term after the update keeps its entry
+            IndexedCourse current = courses.get(course.id());
+            if (current == null || !current.titleTerms().containsKey(term) && !current.descriptionTerms().containsKey(term)) {
+                ids.remove(course.id());
+            }
+            if (ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static Set<String> terms(IndexedCourse course) {
+        Set<String> terms = new HashSet<>(course.titleTerms().keySet());
+        terms.addAll(course.descriptionTerms().keySet());
+        return terms;
+    }
+
+    private static Map<String, Integer> termCounts(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String term : tokenize(text)) {
+            counts.merge(term, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // lower-cased runs of letters and digits
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
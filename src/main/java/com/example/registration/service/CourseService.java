@@ -1,50 +1,149 @@
 package com.example.registration.service;
 
+import com.example.registration.config.CacheConfig;
+import com.example.registration.dto.CourseSearchResultDTO;
+import com.example.registration.dto.EnrollmentDTO;
+import com.example.registration.event.CourseChangedEvent;
 import com.example.registration.model.Course;
 import com.example.registration.repository.CourseRepository;
 import com.example.registration.repository.RegistrationRepository;
+import com.example.registration.repository.WaitlistRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 public class CourseService {
 
+    // most results one search returns
+    public static final int MAX_SEARCH_RESULTS = 100;
+    // most courses one enrollment lookup takes
+    public static final int MAX_ENROLLMENT_IDS = 1000;
+
     private final CourseRepository courseRepo;
     private final RegistrationRepository registrationRepo;
+    private final WaitlistRepository waitlistRepo;
+    private final CourseRenamePropagator renamePropagator;
+    private final WaitlistPromoter waitlistPromoter;
+    private final CourseSearchIndex searchIndex;
 
-    public CourseService(CourseRepository courseRepo, RegistrationRepository registrationRepo) {
+    public CourseService(CourseRepository courseRepo, RegistrationRepository registrationRepo, WaitlistRepository waitlistRepo,
+                         CourseRenamePropagator renamePropagator, WaitlistPromoter waitlistPromoter, CourseSearchIndex searchIndex) {
         this.courseRepo = courseRepo;
         this.registrationRepo = registrationRepo;
+        this.waitlistRepo = waitlistRepo;
+        this.renamePropagator = renamePropagator;
+        this.waitlistPromoter = waitlistPromoter;
+        this.searchIndex = searchIndex;
+    }
+
+    // every course, with a version of the list that is the same on every instance holding the same rows
+    public record Catalog(List<Course> courses, String version) {
     }
 
-    // Finding every single course
-    public List<Course> getAllCourses() {
-        return courseRepo.findAll();
+    // Finding every single course, served from the catalog cache after the first call
+    // not read-only, so it reads the primary: a lagging replica's catalog would stay cached for the whole expiry
+    @Cacheable(cacheNames = CacheConfig.COURSE_CATALOG, key = "'all'")
+    @Transactional
+    public Catalog getAllCourses() {
+        // unmodifiable, the same list is handed to every caller
+        List<Course> courses = List.copyOf(courseRepo.findAll());
+        return new Catalog(courses, catalogVersion(courses));
+    }
+
+    // hashes every course's id and version in id order, from the rows the catalog was built from
+    // a create or delete changes the ids and every JPA update bumps a version, so any instance that loaded
+    // the same rows hands out the same ETag, and one that loaded different rows a different one
+    private static String catalogVersion(List<Course> courses) {
+        long hash = courses.size();
+        for (Course course : courses.stream().sorted(Comparator.comparing(Course::getId)).toList()) {
+            hash = 31 * (31 * hash + course.getId()) + course.getVersion();
+        }
+        return Long.toString(hash & Long.MAX_VALUE, 36);
     }
 
-    // Finding course by id
+    // Finding course by id, served from the course cache after the first call
+    // not read-only, so it reads the primary like getAllCourses
+    @Cacheable(cacheNames = CacheConfig.COURSES, key = "#id")
+    @Transactional
     public Course getCourseById(Integer id) {
         return courseRepo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found with id: " + id));
     }
 
+    // Search course titles and descriptions, answered from the in-memory index without touching the database
+    public List<CourseSearchResultDTO> searchCourses(String query, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        return searchIndex.search(query, limit);
+    }
+
+    // Number of students registered for a course, read from the course's seat counter
+    @Transactional(readOnly = true)
+    public EnrollmentDTO getEnrollment(Integer id) {
+        return courseRepo.findEnrollment(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found with id: " + id));
+    }
+
+    // Enrollment of several courses in one query, ids that don't exist are left out
+    @Transactional(readOnly = true)
+    public List<EnrollmentDTO> getEnrollments(List<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_ENROLLMENT_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + MAX_ENROLLMENT_IDS + " course ids are allowed");
+        }
+        return courseRepo.findEnrollments(new HashSet<>(ids));
+    }
+
     // Create a course
     public Course createCourse(Course course) {
         return courseRepo.save(course);
     }
 
     // Update a course, changing the title and description both in Course and Registration tables
+    @Transactional
     public Course updateCourse(Integer id, Course updatedCourseDetails) {
         Course course = getCourseById(id);
+        boolean renamed = !Objects.equals(course.getTitle(), updatedCourseDetails.getTitle());
+        // a limit that went up or away, students waiting for the course get the new seats
+        boolean capacityRaised = course.getCapacity() != null
+                && (updatedCourseDetails.getCapacity() == null || updatedCourseDetails.getCapacity() > course.getCapacity());
         course.setTitle(updatedCourseDetails.getTitle());
         course.setDescription(updatedCourseDetails.getDescription());
-        return courseRepo.save(course);
+        course.setCapacity(updatedCourseDetails.getCapacity());
+        Course saved;
+        try {
+            // flushed here, so an update that lost the race to another one is a 409 rather than a failed commit
+            saved = courseRepo.saveAndFlush(course);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Course was changed by another request, try again: " + id);
+        }
+
+        // registrations keep their own copy of the title, only touch them when it changed
+        if (renamed) {
+            renamePropagator.courseRenamed(saved);
+        }
+        if (capacityRaised) {
+            waitlistPromoter.capacityRaised(saved.getId());
+        }
+        return saved;
     }
 
     // Delete a course by id
+    @Transactional
     public void deleteCourse(Integer id) {
 
         // course must exist
@@ -55,6 +154,19 @@ public class CourseService {
         if (registrationRepo.existsByCourseId(id)) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Cannot delete course with existing registrations.");
         }
+        // a waitlist doesn't block deleting, it goes with the course
+        waitlistRepo.deleteByCourseId(id);
         courseRepo.deleteById(id);
     }
+
+    // Drop cached copies of a course once a change to it has committed
+    // runs for every JPA write to a course, not only the ones made through this service
+    @TransactionalEventListener(fallbackExecution = true)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#event.course().id"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_CATALOG, allEntries = true)
+    })
+    public void evictCachedCourse(CourseChangedEvent event) {
+        // the evictions are done by the annotations
+    }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.example.registration.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs BCrypt on a fixed pool sized to the CPU instead of on request threads
+// BCrypt is pure CPU work, more threads than cores only makes every hash slower
+// the queue is bounded, when it is full new work is turned away with a 503 and Retry-After instead of piling up
+//
+// imports share the pool with sign-ups and password changes, so they only ever have a few small slices in flight:
+// a sign-up queues behind at most those, never behind the rest of a large import
+@Component
+public class PasswordHasher {
+
+    // a slice holds a thread for this many hashes at most, a fraction of a second each
+    private static final int IMPORT_SLICE_SIZE = 16;
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    // import slices submitted and not yet finished, across all imports
+    private final Semaphore importSlices;
+    private final long retryAfterSeconds;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          @Value("${registration.hashing.threads:0}") int threads,
+                          @Value("${registration.hashing.queue-capacity:1000}") int queueCapacity,
+                          @Value("${registration.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        // 0 means one thread per core
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // one thread left for interactive hashing, unless there is only the one
+        this.importSlices = new Semaphore(Math.max(1, poolSize - 1));
+        // queue depth, active threads and task times under executor.* with name=passwordHashing
+        new ExecutorServiceMetrics(executor, "passwordHashing", List.of()).bindTo(meterRegistry);
+    }
+
+    // hashes one password on the pool, the calling thread is free to do other work in the meantime
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), executor);
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+    }
+
+    // hashes every password, spread across the pool, results are in the same order
+    // the next slice is submitted only once one in flight finishes, the caller waits for a free slot in between
+    public List<String> encodeAll(List<String> rawPasswords) {
+        if (rawPasswords.isEmpty()) {
+            return List.of();
+        }
+        String[] encoded = new String[rawPasswords.size()];
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int from = 0; from < rawPasswords.size(); from += IMPORT_SLICE_SIZE) {
+                int start = from;
+                int end = Math.min(from + IMPORT_SLICE_SIZE, rawPasswords.size());
+                importSlices.acquire();
+                // done runs however the slice ends, cancelled while still queued included
+                FutureTask<Void> slice = new FutureTask<>(() -> {
+                    for (int i = start; i < end; i++) {
+                        encoded[i] = passwordEncoder.encode(rawPasswords.get(i));
+                    }
+                }, null) {
+                    @Override
+                    protected void done() {
+                        importSlices.release();
+                    }
+                };
+                try {
+                    executor.execute(slice);
+                } catch (RejectedExecutionException e) {
+                    importSlices.release();
+                    throw e;
+                }
+                futures.add(slice);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (RejectedExecutionException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw busy();
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException | CancellationException e) {
+            throw new IllegalStateException("Password hashing failed", e);
+        }
+        return Arrays.asList(encoded);
+    }
+
+    private ResponseStatusException busy() {
+        return new HashingBusyException(retryAfterSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 503 telling the client when to try again
+    private static class HashingBusyException extends ResponseStatusException {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        HashingBusyException(long retryAfterSeconds) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "Too many passwords waiting to be hashed, try again later");
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
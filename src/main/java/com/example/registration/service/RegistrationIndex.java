@@ -0,0 +1,112 @@
+package com.example.registration.service;
+
+import com.example.registration.event.RegistrationChangedEvent;
+import com.example.registration.model.Registration;
+import com.example.registration.repository.RegistrationRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// In-memory copy of which (studentId, courseId) pairs are registered, used to order and short-list
+// the duplicate checks a registration makes against the database, it never saves the round trip
+// kept as studentId -> sorted course ids, a few bytes per registration instead of a boxed key per pair
+// the unique constraint on registrations stays the final word: a miss here is always checked by the database,
+// and a hit only tells the caller which pairs to check first, since the index only knows about registrations
+// committed through this instance and never hears of deletes made on another one
+@Component
+public class RegistrationIndex implements SmartInitializingSingleton {
+
+    private static final int[] NO_COURSES = new int[0];
+
+    private final ConcurrentHashMap<Integer, int[]> coursesByStudent = new ConcurrentHashMap<>();
+
+    private final RegistrationRepository registrationRepo;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public RegistrationIndex(RegistrationRepository registrationRepo, PlatformTransactionManager transactionManager) {
+        this.registrationRepo = registrationRepo;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // load every registration before the web server starts taking requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = registrationRepo.streamStudentCourseIds()) {
+                rows.forEach(row -> add((Integer) row[0], (Integer) row[1]));
+            }
+        });
+    }
+
+    // true if the student is known to be registered for the course
+    public boolean contains(Integer studentId, Integer courseId) {
+        if (studentId == null || courseId == null) {
+            return false;
+        }
+        int[] courses = coursesByStudent.get(studentId);
+        return courses != null && Arrays.binarySearch(courses, courseId) >= 0;
+    }
+
+    // drop a pair the database turned out not to have, e.g. a registration deleted on another instance
+    public void forget(Integer studentId, Integer courseId) {
+        remove(studentId, courseId);
+    }
+
+    // keep the index in step with registrations once they commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void registrationChanged(RegistrationChangedEvent event) {
+        Registration registration = event.registration();
+        if (event.deleted()) {
+            remove(registration.getStudentId(), registration.getCourseId());
+        } else {
+            add(registration.getStudentId(), registration.getCourseId());
+        }
+    }
+
+    private void add(Integer studentId, Integer courseId) {
+        if (studentId == null || courseId == null) {
+            return;
+        }
+        // arrays are replaced, never changed in place, so readers never see a half-written one
+        coursesByStudent.compute(studentId, (id, courses) -> {
+            int[] current = courses == null ? NO_COURSES : courses;
+            int position = Arrays.binarySearch(current, courseId);
+            if (position >= 0) {
+                return current;
+            }
+            int insertAt = -position - 1;
+            int[] updated = new int[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = courseId;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            return updated;
+        });
+    }
+
+    private void remove(Integer studentId, Integer courseId) {
+        if (studentId == null || courseId == null) {
+            return;
+        }
+        coursesByStudent.computeIfPresent(studentId, (id, courses) -> {
+            int position = Arrays.binarySearch(courses, courseId);
+            if (position < 0) {
+                return courses;
+            }
+            if (courses.length == 1) {
+                // returning null drops the student from the map
+                return null;
+            }
+            int[] updated = new int[courses.length - 1];
+            System.arraycopy(courses, 0, updated, 0, position);
+            System.arraycopy(courses, position + 1, updated, position, courses.length - position - 1);
+            return updated;
+        });
+    }
+}
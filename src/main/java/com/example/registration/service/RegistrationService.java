@@ -1,37 +1,88 @@
 package com.example.registration.service;
 
+import com.example.registration.dto.BulkRegistrationResultDTO;
+import com.example.registration.dto.EnrollmentDTO;
 import com.example.registration.dto.RegistrationResponseDTO;
+import com.example.registration.event.RegistrationChangedEvent;
 import com.example.registration.model.Course;
 import com.example.registration.model.Registration;
 import com.example.registration.model.Student;
 import com.example.registration.repository.CourseRepository;
 import com.example.registration.repository.RegistrationRepository;
 import com.example.registration.repository.StudentRepository;
+import com.example.registration.repository.WaitlistRepository;
 import jakarta.persistence.EntityNotFoundException;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 public class RegistrationService {
 
+    // page sizes for GET /api/registrations
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // most pairs accepted by one POST /api/registrations/bulk
+    public static final int MAX_BULK_SIZE = 5000;
+    // ids per IN (...) lookup, keeps each statement well under the driver's bind parameter limit
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     private final RegistrationRepository registrationRepo;
     private final StudentRepository studentRepo;
     private final CourseRepository courseRepo;
+    private final WaitlistRepository waitlistRepo;
+    private final RegistrationIndex registrationIndex;
+    private final StudentScheduleCache scheduleCache;
+    // schedule cache misses read in their own transaction, hits don't start one
+    private final TransactionTemplate transaction;
 
-    public RegistrationService(RegistrationRepository registrationRepo, StudentRepository studentRepo, CourseRepository courseRepo) {
+    public RegistrationService(RegistrationRepository registrationRepo, StudentRepository studentRepo, CourseRepository courseRepo,
+                               WaitlistRepository waitlistRepo, RegistrationIndex registrationIndex, StudentScheduleCache scheduleCache,
+                               PlatformTransactionManager transactionManager) {
         this.registrationRepo = registrationRepo;
         this.studentRepo = studentRepo;
         this.courseRepo = courseRepo;
+        this.waitlistRepo = waitlistRepo;
+        this.registrationIndex = registrationIndex;
+        this.scheduleCache = scheduleCache;
+        this.transaction = new TransactionTemplate(transactionManager);
     }
 
 
-    // Create a registration from a DTO
+    // Create a registration from a DTO, taking a seat in the course
+    @Transactional
     public RegistrationResponseDTO createRegistration(RegistrationResponseDTO requestDto) {
+        // a pair that isn't in the index skips the duplicate lookup and goes straight to the insert below
+        // a hit is checked against the database, the registration may have been deleted on another instance
+        if (registrationIndex.contains(requestDto.getStudentId(), requestDto.getCourseId())) {
+            if (registrationRepo.existsByStudentIdAndCourseId(requestDto.getStudentId(), requestDto.getCourseId())) {
+                throw alreadyRegistered(requestDto.getCourseId());
+            }
+            registrationIndex.forget(requestDto.getStudentId(), requestDto.getCourseId());
+        }
+
         // finding student and course from database based on their ids
         Student student = studentRepo.findById(requestDto.getStudentId())
                 .orElseThrow(() -> new EntityNotFoundException("Student not found with id: " + requestDto.getStudentId()));
@@ -39,6 +90,23 @@ public class RegistrationService {
         Course course = courseRepo.findById(requestDto.getCourseId())
                 .orElseThrow(() -> new EntityNotFoundException("Course not found with id: " + requestDto.getCourseId()));
 
+        // turn away requests for a course that was already full when loaded, before doing any writes
+        // a course from the second-level cache can have an old seat count, so one that looks full is checked
+        // against its row before the student is turned away
+        if (isFull(course) && courseRepo.findEnrollment(course.getId()).map(RegistrationService::isFull).orElse(true)) {
+            throw courseFull(course.getId());
+        }
+
+        // a seat freed on a course with a waitlist belongs to the student first in line
+        // anyone else is turned away rather than taking it before WaitlistPromoter gets there
+        List<Integer> firstInLine = waitlistRepo.findStudentIdsInOrder(course.getId(), Limit.of(1));
+        if (!firstInLine.isEmpty()) {
+            if (!firstInLine.get(0).equals(student.getId())) {
+                throw waitlisted(course.getId());
+            }
+            waitlistRepo.deleteByStudentIdAndCourseId(student.getId(), course.getId());
+        }
+
         // create new registration entity
         Registration registration = new Registration();
 
@@ -51,48 +119,233 @@ public class RegistrationService {
         registration.setStudentEmail(student.getEmail());
         registration.setCourseName(course.getTitle());
 
-        // save the populated entity to the database
-        Registration savedRegistration = registrationRepo.save(registration);
+        // save the populated entity to the database, the unique constraint catches duplicates the index didn't know about
+        Registration savedRegistration;
+        try {
+            savedRegistration = registrationRepo.saveAndFlush(registration);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateRegistration(e)) {
+                throw alreadyRegistered(course.getId());
+            }
+            throw e;
+        }
+
+        // take the seat last, so the course row is only locked from here until commit
+        // if the course filled up in the meantime the exception rolls the insert back
+        if (courseRepo.reserveSeat(course.getId()) == 0) {
+            throw courseFull(course.getId());
+        }
 
         // return the DTO
         return new RegistrationResponseDTO(savedRegistration);
     }
 
 
-    // Gets all registrations
-    public List<RegistrationResponseDTO> getAllRegistrations() {
-        return registrationRepo.findAll().stream()
-                .map(RegistrationResponseDTO::new)
-                .collect(Collectors.toList());
+    // Create many registrations in one transaction, each pair gets its own result
+    // students and courses are looked up with IN queries and the inserts go out in JDBC batches
+    @Transactional
+    public List<BulkRegistrationResultDTO> createRegistrations(List<RegistrationResponseDTO> requestDtos) {
+        if (requestDtos.size() > MAX_BULK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BULK_SIZE + " registrations per request");
+        }
+
+        // resolve every distinct student and course up front
+        // the courses are row-locked until commit so their free seats can be handed out here
+        Map<Integer, Student> students = findAllById(
+                requestDtos.stream().map(RegistrationResponseDTO::getStudentId).toList(), studentRepo::findAllById, Student::getId);
+        Map<Integer, Course> courses = findAllById(
+                requestDtos.stream().map(RegistrationResponseDTO::getCourseId).toList(), courseRepo::findAllByIdForUpdate, Course::getId);
+
+        // pairs that are already registered, plus the ones accepted so far in this request
+        Set<Long> registeredPairs = findRegisteredPairs(students.keySet());
+
+        // courses with students waiting, their free seats are left to WaitlistPromoter
+        Set<Integer> waitlistedCourses = courses.isEmpty() ? Set.of() : new HashSet<>(waitlistRepo.findCourseIdsWithWaitlist(courses.keySet()));
+
+        // seats handed out so far in this request, per course
+        Map<Integer, Integer> seatsTaken = new HashMap<>();
+
+        List<BulkRegistrationResultDTO> results = new ArrayList<>(requestDtos.size());
+        List<Registration> registrations = new ArrayList<>(requestDtos.size());
+
+        for (int i = 0; i < requestDtos.size(); i++) {
+            RegistrationResponseDTO requestDto = requestDtos.get(i);
+
+            if (requestDto.getStudentId() == null || requestDto.getCourseId() == null) {
+                results.add(new BulkRegistrationResultDTO(i, requestDto, HttpStatus.BAD_REQUEST.value(), null, "studentId and courseId are required"));
+                continue;
+            }
+            Student student = students.get(requestDto.getStudentId());
+            if (student == null) {
+                results.add(new BulkRegistrationResultDTO(i, requestDto, HttpStatus.NOT_FOUND.value(), null, "Student not found with id: " + requestDto.getStudentId()));
+                continue;
+            }
+            Course course = courses.get(requestDto.getCourseId());
+            if (course == null) {
+                results.add(new BulkRegistrationResultDTO(i, requestDto, HttpStatus.NOT_FOUND.value(), null, "Course not found with id: " + requestDto.getCourseId()));
+                continue;
+            }
+            if (!registeredPairs.add(pairKey(student.getId(), course.getId()))) {
+                results.add(new BulkRegistrationResultDTO(i, requestDto, HttpStatus.CONFLICT.value(), null, "Student is already registered for course: " + course.getId()));
+                continue;
+            }
+            if (waitlistedCourses.contains(course.getId())) {
+                results.add(new BulkRegistrationResultDTO(i, requestDto, HttpStatus.CONFLICT.value(), null, "Course has a waitlist: " + course.getId()));
+                continue;
+            }
+            int taken = seatsTaken.getOrDefault(course.getId(), 0);
+            if (course.getCapacity() != null && course.getSeatsTaken() + taken >= course.getCapacity()) {
+                results.add(new BulkRegistrationResultDTO(i, requestDto, HttpStatus.CONFLICT.value(), null, "Course is full: " + course.getId()));
+                continue;
+            }
+            seatsTaken.put(course.getId(), taken + 1);
+
+            registrations.add(new Registration(student, course));
+
+            // the id is filled in below once the registration has been persisted
+            results.add(new BulkRegistrationResultDTO(i, requestDto, HttpStatus.CREATED.value(), null, null));
+        }
+
+        // ids come from the pooled sequence here, the inserts themselves are batched at flush
+        registrationRepo.saveAll(registrations);
+        // one update per course, safe without a capacity check since the rows are locked
+        seatsTaken.forEach(courseRepo::takeSeats);
+
+        int saved = 0;
+        for (BulkRegistrationResultDTO result : results) {
+            if (result.getStatus() == HttpStatus.CREATED.value()) {
+                result.setRegistrationID(registrations.get(saved++).getRegistrationID());
+            }
+        }
+        return results;
+    }
+
+    // every (studentId, courseId) the given students are registered for, as pairKeys
+    private Set<Long> findRegisteredPairs(Set<Integer> studentIds) {
+        List<Integer> ids = List.copyOf(studentIds);
+        Set<Long> pairs = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            for (Object[] row : registrationRepo.findStudentCourseIdsByStudentIdIn(ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size())))) {
+                pairs.add(pairKey((Integer) row[0], (Integer) row[1]));
+            }
+        }
+        return pairs;
+    }
+
+    private static long pairKey(int studentId, int courseId) {
+        return ((long) studentId << 32) | (courseId & 0xFFFFFFFFL);
     }
 
-    // Get all registrations by student id
+    // looks up entities by id with chunked IN queries, in ascending id order, and returns them keyed by id
+    private static <T> Map<Integer, T> findAllById(List<Integer> ids, Function<List<Integer>, List<T>> finder, Function<T, Integer> idOf) {
+        List<Integer> distinctIds = ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        Map<Integer, T> found = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Integer> chunk = distinctIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinctIds.size()));
+            for (T entity : finder.apply(chunk)) {
+                found.put(idOf.apply(entity), entity);
+            }
+        }
+        return found;
+    }
+
+    // Gets one page of registrations, keyset paginated on the registration id
+    // afterId is the last id of the previous page, null for the first page
+    @Transactional(readOnly = true)
+    public List<RegistrationResponseDTO> getRegistrationsPage(Integer afterId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        int after = afterId == null ? 0 : afterId;
+
+        return registrationRepo.findDTOPageAfter(after, Limit.of(size));
+    }
+
+    // Streams every registration to the consumer in id order without holding them all in memory
+    @Transactional(readOnly = true)
+    public void streamAllRegistrations(Consumer<RegistrationResponseDTO> consumer) {
+        // the rows are DTOs, not entities, so nothing piles up in the persistence context
+        try (Stream<RegistrationResponseDTO> registrations = registrationRepo.streamAllDTOs()) {
+            registrations.forEach(consumer);
+        }
+    }
+
+    // Get all registrations by student id, served from the schedule cache after the first call
+    // a hit runs no transaction, a miss reads in one that isn't read-only, so it reads the primary:
+    // a lagging replica's schedule would stay cached for the whole expiry
     public List<RegistrationResponseDTO> getAllRegistrationsByStudentId(Integer studentId) {
-        // check if a student exists
-        if (!studentRepo.existsById(studentId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found with id: " + studentId);
+        List<RegistrationResponseDTO> cached = scheduleCache.get(studentId);
+        if (cached != null) {
+            return cached;
         }
+        // taken before the reads, see StudentScheduleCache
+        long version = scheduleCache.version(studentId);
 
-        // fetch the registrations by the student id and create a list of DTOs as the response
-        return registrationRepo.findByStudentId(studentId).stream()
-                .map(RegistrationResponseDTO::new)
-                .collect(Collectors.toList());
+        List<RegistrationResponseDTO> schedule = transaction.execute(status -> {
+            // check if a student exists
+            if (!studentRepo.existsById(studentId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found with id: " + studentId);
+            }
+
+            // fetch the registrations by the student id, already shaped as DTOs by the query
+            // unmodifiable, the same list is handed to every caller
+            return List.copyOf(registrationRepo.findDTOsByStudentId(studentId));
+        });
+        scheduleCache.put(studentId, version, schedule);
+        return schedule;
+    }
+
+    // a registration of the student was created or deleted, drop their schedule once that has committed
+    // covers single, bulk and waitlist registrations alike, they all go through the entity listener
+    @TransactionalEventListener(fallbackExecution = true)
+    public void evictSchedule(RegistrationChangedEvent event) {
+        Integer studentId = event.registration().getStudentId();
+        if (studentId != null) {
+            scheduleCache.evict(studentId);
+        }
     }
 
     // Gets registration by id
+    @Transactional(readOnly = true)
     public RegistrationResponseDTO getRegistrationById(Integer id) {
         Registration registration = registrationRepo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Registration not found with id: " + id));
         return new RegistrationResponseDTO(registration);
     }
 
-    // Delete registration by id
+    // Delete registration by id, giving its seat back to the course
+    @Transactional
     public void deleteRegistration(Integer id) {
 
         // registration must exist
-        if (!registrationRepo.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Registration not found with id: " + id);
-        }
-        registrationRepo.deleteById(id);
+        Registration registration = registrationRepo.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Registration not found with id: " + id));
+        registrationRepo.delete(registration);
+        courseRepo.releaseSeat(registration.getCourseId());
+    }
+
+    private static boolean isFull(Course course) {
+        return course.getCapacity() != null && course.getSeatsTaken() >= course.getCapacity();
+    }
+
+    private static boolean isFull(EnrollmentDTO enrollment) {
+        return enrollment.getSeatsLeft() != null && enrollment.getSeatsLeft() == 0;
+    }
+
+    private static boolean isDuplicateRegistration(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && Registration.STUDENT_COURSE_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+    }
+
+    private static ResponseStatusException alreadyRegistered(Integer courseId) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Student is already registered for course: " + courseId);
+    }
+
+    private static ResponseStatusException waitlisted(Integer courseId) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Course has a waitlist, join it instead: " + courseId);
+    }
+
+    private static ResponseStatusException courseFull(Integer courseId) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Course is full: " + courseId);
     }
 }
\ No newline at end of file
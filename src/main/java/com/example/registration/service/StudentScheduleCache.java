@@ -0,0 +1,73 @@
+package com.example.registration.service;
+
+import com.example.registration.config.CacheConfig;
+import com.example.registration.dto.RegistrationResponseDTO;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// The student schedule cache, filled cache-aside by RegistrationService.getAllRegistrationsByStudentId
+// a fill reads the schedule before it puts it, so an eviction in between would otherwise be undone by a stale put
+// every eviction bumps a version first, and a fill keeps its put only if the version it started with is still current
+//
+// this only covers writes made through this instance: a registration created or deleted on another instance
+// never evicts here, and the schedule cached here stays until expireAfterWrite in registration.cache.studentSchedules.spec
+@Component
+public class StudentScheduleCache {
+
+    // versions are striped by student id, a bounded array instead of an entry per student ever seen
+    // students sharing a stripe only cost each other a skipped put, never a stale one
+    private static final int STRIPES = 1024;
+
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final CacheManager cacheManager;
+
+    public StudentScheduleCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // the cached schedule, or null on a miss
+    @SuppressWarnings("unchecked")
+    public List<RegistrationResponseDTO> get(Integer studentId) {
+        Cache.ValueWrapper cached = schedules().get(studentId);
+        return cached == null ? null : (List<RegistrationResponseDTO>) cached.get();
+    }
+
+    // taken before the schedule is read from the database, and handed back to put
+    public long version(Integer studentId) {
+        return versions.get(stripe(studentId));
+    }
+
+    // the put goes in first and is taken back out if an eviction came after the version was taken,
+    // checking first would leave a gap between the check and the put for an eviction to fall into
+    public void put(Integer studentId, long version, List<RegistrationResponseDTO> schedule) {
+        Cache schedules = schedules();
+        schedules.put(studentId, schedule);
+        if (versions.get(stripe(studentId)) != version) {
+            schedules.evict(studentId);
+        }
+    }
+
+    public void evict(Integer studentId) {
+        versions.incrementAndGet(stripe(studentId));
+        schedules().evict(studentId);
+    }
+
+    public void evictAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        schedules().clear();
+    }
+
+    private static int stripe(Integer studentId) {
+        return Math.floorMod(studentId.hashCode(), STRIPES);
+    }
+
+    private Cache schedules() {
+        return cacheManager.getCache(CacheConfig.STUDENT_SCHEDULES);
+    }
+}
@@ -1,57 +1,200 @@
 package com.example.registration.service;
 
+import com.example.registration.config.EntityCacheConfig;
+import com.example.registration.dto.StudentImportResultDTO;
 import com.example.registration.model.Student;
 import com.example.registration.repository.RegistrationRepository;
 import com.example.registration.repository.StudentRepository;
+import com.example.registration.repository.WaitlistRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder; // Import PasswordEncoder
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 public class StudentService {
 
+    // most rows a single import may contain
+    public static final int MAX_IMPORT_SIZE = 50_000;
+    // most emails checked against the database in one IN query
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     private final StudentRepository studentRepo;
     private final RegistrationRepository registrationRepo;
+    private final WaitlistRepository waitlistRepo;
 
-    // adding password encoder here
-    private final PasswordEncoder passwordEncoder;
+    // BCrypt runs on its own bounded pool, database work after it on the shared task executor
+    private final PasswordHasher passwordHasher;
+    private final Executor taskExecutor;
+    // updates save the student and its registration copies together, on whichever thread finishes the hashing
+    private final TransactionTemplate transaction;
+    // cached schedules carry the student's name and email, see RegistrationService.getAllRegistrationsByStudentId
+    private final StudentScheduleCache scheduleCache;
+    private final EntityManagerFactory entityManagerFactory;
 
-    public StudentService(StudentRepository studentRepo, RegistrationRepository registrationRepo, PasswordEncoder passwordEncoder) {
+    public StudentService(StudentRepository studentRepo, RegistrationRepository registrationRepo, WaitlistRepository waitlistRepo,
+                          PasswordHasher passwordHasher, @Qualifier("applicationTaskExecutor") Executor taskExecutor,
+                          PlatformTransactionManager transactionManager, StudentScheduleCache scheduleCache,
+                          EntityManagerFactory entityManagerFactory) {
         this.studentRepo = studentRepo;
         this.registrationRepo = registrationRepo;
-        this.passwordEncoder = passwordEncoder;
+        this.waitlistRepo = waitlistRepo;
+        this.passwordHasher = passwordHasher;
+        this.taskExecutor = taskExecutor;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.scheduleCache = scheduleCache;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
+    @Transactional(readOnly = true)
     public List<Student> getAllStudents() {
         return studentRepo.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Student getStudentById(Integer id) {
         return studentRepo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found with id: " + id));
     }
 
-    public Student createStudent(Student student) {
+    // hashing runs on the PasswordHasher pool and the insert on the task executor, never on the request thread
+    public CompletableFuture<Student> createStudent(Student student) {
         // set the password based on the user's request
-        student.setPassword(passwordEncoder.encode(student.getPassword()));
-        return studentRepo.save(student);
+        return passwordHasher.encodeAsync(student.getPassword())
+                .thenApplyAsync(hash -> {
+                    student.setPassword(hash);
+                    return studentRepo.save(student);
+                }, taskExecutor);
+    }
+
+    // Create many students at once with a result per row, a null row is one that could not be parsed
+    // passwords are hashed in parallel before anything is written, then every valid row is inserted in one go
+    public List<StudentImportResultDTO> importStudents(List<Student> rows) {
+        if (rows.size() > MAX_IMPORT_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_IMPORT_SIZE + " students can be imported at once");
+        }
+
+        // emails already in the database, plus the ones accepted so far in this import
+        Set<String> takenEmails = findExistingEmails(rows);
+
+        List<StudentImportResultDTO> results = new ArrayList<>();
+        List<Student> accepted = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Student student = rows.get(i);
+            int row = i + 1;
+            if (student == null) {
+                results.add(new StudentImportResultDTO(row, null, HttpStatus.BAD_REQUEST.value(), "Malformed row"));
+                continue;
+            }
+            if (student.getEmail() == null || student.getEmail().isBlank()) {
+                results.add(new StudentImportResultDTO(row, student.getEmail(), HttpStatus.BAD_REQUEST.value(), "Email is required"));
+                continue;
+            }
+            if (student.getPassword() == null || student.getPassword().isEmpty()) {
+                results.add(new StudentImportResultDTO(row, student.getEmail(), HttpStatus.BAD_REQUEST.value(), "Password is required"));
+                continue;
+            }
+            if (!takenEmails.add(student.getEmail())) {
+                results.add(new StudentImportResultDTO(row, student.getEmail(), HttpStatus.CONFLICT.value(), "Email already in use: " + student.getEmail()));
+                continue;
+            }
+            accepted.add(student);
+            results.add(new StudentImportResultDTO(row, student.getEmail(), HttpStatus.CREATED.value(), null));
+        }
+
+        List<String> hashes = passwordHasher.encodeAll(accepted.stream().map(Student::getPassword).toList());
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).setPassword(hashes.get(i));
+        }
+        transaction.executeWithoutResult(status -> {
+            studentRepo.insertAll(accepted);
+            // COPY goes around Hibernate, so a cached "no such email" from before the import has to be dropped by hand
+            // only once the rows have committed, a lookup between the eviction and the commit would cache it again
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion(EntityCacheConfig.STUDENT_BY_EMAIL_REGION);
+                }
+            });
+        });
+        return results;
     }
 
-    public Student updateStudent(Integer id, Student updatedStudentDetails) {
-        Student student = getStudentById(id);
+    private Set<String> findExistingEmails(List<Student> rows) {
+        List<String> emails = rows.stream()
+                .filter(student -> student != null && student.getEmail() != null)
+                .map(Student::getEmail)
+                .distinct()
+                .toList();
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < emails.size(); from += LOOKUP_CHUNK_SIZE) {
+            existing.addAll(studentRepo.findExistingEmails(emails.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, emails.size()))));
+        }
+        return existing;
+    }
+
+    public CompletableFuture<Student> updateStudent(Integer id, Student updatedStudentDetails) {
+        // read in a read-write transaction so it comes from the primary, a replica that is behind would hand back
+        // an old version and the save below would turn it away as a conflict
+        Student student = transaction.execute(status -> studentRepo.findById(id))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found with id: " + id));
+        boolean renamed = !Objects.equals(student.getName(), updatedStudentDetails.getName())
+                || !Objects.equals(student.getEmail(), updatedStudentDetails.getEmail());
         student.setName(updatedStudentDetails.getName());
         student.setEmail(updatedStudentDetails.getEmail());
 
-        // check if a new password was provided and encode it
+        // check if a new password was provided and encode it, off the request thread like createStudent
         if (updatedStudentDetails.getPassword() != null && !updatedStudentDetails.getPassword().isEmpty()) {
-            student.setPassword(passwordEncoder.encode(updatedStudentDetails.getPassword()));
+            return passwordHasher.encodeAsync(updatedStudentDetails.getPassword())
+                    .thenApplyAsync(hash -> {
+                        student.setPassword(hash);
+                        return save(student, renamed);
+                    }, taskExecutor);
+        }
+        return CompletableFuture.completedFuture(save(student, renamed));
+    }
+
+    // the student and the copies of its name and email on its registrations change in one transaction
+    // a student has a handful of registrations, one update in the same transaction is always enough
+    // the student was read outside the transaction, a save that finds its version out of date lost the race to another update
+    private Student save(Student student, boolean renamed) {
+        Student saved;
+        try {
+            saved = transaction.execute(status -> {
+                Student updated = studentRepo.save(student);
+                if (renamed) {
+                    registrationRepo.updateStudentCopies(updated.getId(), updated.getName(), updated.getEmail());
+                }
+                return updated;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Student was changed by another request, try again: " + student.getId());
+        }
+        if (renamed) {
+            scheduleCache.evict(saved.getId());
         }
-        return studentRepo.save(student);
+        return saved;
     }
 
+    @Transactional
     public void deleteStudent(Integer id) {
         if (!studentRepo.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found with id: " + id);
@@ -59,6 +202,15 @@ public class StudentService {
         if (registrationRepo.existsByStudentId(id)) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Cannot delete student with existing registrations.");
         }
+        // waiting for a seat doesn't block deleting, the student just leaves every waitlist
+        waitlistRepo.deleteByStudentId(id);
         studentRepo.deleteById(id);
+        // the student's cached empty schedule would outlive them, drop it once the delete has committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                scheduleCache.evict(id);
+            }
+        });
     }
 }
\ No newline at end of file
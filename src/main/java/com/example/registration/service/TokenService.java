@@ -0,0 +1,112 @@
+package com.example.registration.service;
+
+import com.example.registration.config.TokenProperties;
+import com.example.registration.dto.TokenResponseDTO;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Issues and checks the signed bearer tokens used instead of sending the password on every request
+// A token is base64url("keyId:expiresAtEpochSeconds:email") + "." + base64url(HMAC-SHA256 of the first part)
+@Service
+@Timed(value = "service.method", histogram = true)
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    // secrets shorter than the HMAC-SHA256 output are rejected at startup
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final TokenProperties properties;
+    private final Map<String, SecretKeySpec> keys = new HashMap<>();
+
+    public TokenService(TokenProperties properties) {
+        this.properties = properties;
+
+        properties.getKeys().forEach((keyId, secret) -> {
+            if (keyId.contains(":")) {
+                throw new IllegalStateException("auth.token key id must not contain ':': " + keyId);
+            }
+            // an unset AUTH_TOKEN_SECRET arrives as an empty secret
+            if (secret == null || secret.length() < MIN_SECRET_LENGTH) {
+                throw new IllegalStateException("auth.token key " + keyId + " is missing or shorter than " + MIN_SECRET_LENGTH + " characters");
+            }
+            keys.put(keyId, new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        });
+        if (properties.getActiveKeyId() == null || !keys.containsKey(properties.getActiveKeyId())) {
+            throw new IllegalStateException("auth.token.active-key-id does not name a configured key: " + properties.getActiveKeyId());
+        }
+    }
+
+    // create a token for an email that has already been authenticated
+    public TokenResponseDTO issueToken(String email) {
+        Instant expiresAt = Instant.now().plus(properties.getExpiry());
+        String keyId = properties.getActiveKeyId();
+
+        String payload = ENCODER.encodeToString(
+                (keyId + ":" + expiresAt.getEpochSecond() + ":" + email).getBytes(StandardCharsets.UTF_8));
+        String signature = ENCODER.encodeToString(sign(keys.get(keyId), payload));
+
+        return new TokenResponseDTO(payload + "." + signature, expiresAt);
+    }
+
+    // returns the email the token was issued to, or empty if it is malformed, tampered with, signed by an unknown key or expired
+    public Optional<String> verifyToken(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, dot);
+
+        try {
+            // keyId:expiresAt:email, the email goes last since it is the only part that may contain ':'
+            String[] parts = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":", 3);
+            if (parts.length != 3) {
+                return Optional.empty();
+            }
+
+            SecretKeySpec key = keys.get(parts[0]);
+            if (key == null) {
+                return Optional.empty();
+            }
+
+            // constant time comparison so the signature can't be guessed byte by byte
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(key, payload), signature)) {
+                return Optional.empty();
+            }
+
+            if (Instant.now().getEpochSecond() >= Long.parseLong(parts[1])) {
+                return Optional.empty();
+            }
+            return Optional.of(parts[2]);
+        } catch (IllegalArgumentException e) {
+            // bad base64 or a non-numeric expiry
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] sign(SecretKeySpec key, String payload) {
+        try {
+            // Mac instances are not thread safe, and creating one is cheap next to a BCrypt check
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.registration.service;
+
+import com.example.registration.event.RegistrationChangedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Promotes waitlisted students in the background when seats free up
+// deleting a registration only records the course here, the promotion itself runs on the scheduler thread
+@Component
+public class WaitlistPromoter {
+
+    private final WaitlistService waitlistService;
+
+    // courses that had a seat freed or added since the last run
+    private final Set<Integer> pendingCourseIds = ConcurrentHashMap.newKeySet();
+
+    public WaitlistPromoter(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    // a registration was deleted, its seat is free once the delete has committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void registrationChanged(RegistrationChangedEvent event) {
+        if (event.deleted() && event.registration().getCourseId() != null) {
+            pendingCourseIds.add(event.registration().getCourseId());
+        }
+    }
+
+    // must be called inside the transaction that raises the course's capacity, the new seats are free once it commits
+    public void capacityRaised(Integer courseId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pendingCourseIds.add(courseId);
+            }
+        });
+    }
+
+    // every freed seat recorded since the last run is handled in one transaction
+    @Scheduled(fixedDelayString = "${registration.waitlist.promotion-delay-ms:200}")
+    public void promotePending() {
+        if (pendingCourseIds.isEmpty()) {
+            return;
+        }
+        List<Integer> courseIds = new ArrayList<>();
+        for (Integer courseId : pendingCourseIds) {
+            pendingCourseIds.remove(courseId);
+            courseIds.add(courseId);
+        }
+
+        try {
+            waitlistService.promote(courseIds);
+        } catch (RuntimeException e) {
+            // try these courses again on the next run
+            pendingCourseIds.addAll(courseIds);
+            throw e;
+        }
+    }
+
+    // catches seats freed on other instances, capacity raised by other writers than CourseService.updateCourse,
+    // and anything pending when the app last stopped
+    @Scheduled(fixedDelayString = "${registration.waitlist.sweep-interval-ms:60000}")
+    public void sweep() {
+        pendingCourseIds.addAll(waitlistService.findCoursesToPromote());
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.registration.service;
+
+import com.example.registration.dto.EnrollmentDTO;
+import com.example.registration.dto.RegistrationResponseDTO;
+import com.example.registration.dto.WaitlistEntryDTO;
+import com.example.registration.model.Course;
+import com.example.registration.model.Registration;
+import com.example.registration.model.Student;
+import com.example.registration.model.WaitlistEntry;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import com.example.registration.repository.StudentRepository;
+import com.example.registration.repository.WaitlistRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Timed(value = "service.method", histogram = true)
+public class WaitlistService {
+
+    private final WaitlistRepository waitlistRepo;
+    private final RegistrationRepository registrationRepo;
+    private final StudentRepository studentRepo;
+    private final CourseRepository courseRepo;
+
+    // most students promoted into one course per promotion run
+    private final int batchSize;
+
+    public WaitlistService(WaitlistRepository waitlistRepo, RegistrationRepository registrationRepo,
+                           StudentRepository studentRepo, CourseRepository courseRepo,
+                           @Value("${registration.waitlist.batch-size:100}") int batchSize) {
+        this.waitlistRepo = waitlistRepo;
+        this.registrationRepo = registrationRepo;
+        this.studentRepo = studentRepo;
+        this.courseRepo = courseRepo;
+        this.batchSize = batchSize;
+    }
+
+    // Put a student at the back of a full course's waitlist
+    @Transactional
+    public WaitlistEntryDTO joinWaitlist(RegistrationResponseDTO requestDto) {
+        Student student = studentRepo.findById(requestDto.getStudentId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found with id: " + requestDto.getStudentId()));
+        Course course = courseRepo.findById(requestDto.getCourseId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found with id: " + requestDto.getCourseId()));
+
+        // only full courses have a waitlist, otherwise the student can register straight away
+        // the seat count is read from the row, the course itself may come from the second-level cache
+        // a course with free seats and a line already waiting keeps its line, the seats are held for the students in it
+        // (RegistrationService turns everyone else away), so a newcomer joins the back of the line
+        EnrollmentDTO enrollment = courseRepo.findEnrollment(course.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found with id: " + requestDto.getCourseId()));
+        boolean freeSeats = enrollment.getSeatsLeft() == null || enrollment.getSeatsLeft() > 0;
+        if (freeSeats && !waitlistRepo.existsByCourseId(course.getId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Course has free seats: " + course.getId());
+        }
+        if (registrationRepo.existsByStudentIdAndCourseId(student.getId(), course.getId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Student is already registered for course: " + course.getId());
+        }
+        if (waitlistRepo.existsByStudentIdAndCourseId(student.getId(), course.getId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Student is already on the waitlist for course: " + course.getId());
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setStudent(student);
+        entry.setCourse(course);
+        entry.setCreatedAt(Instant.now());
+        return new WaitlistEntryDTO(waitlistRepo.save(entry));
+    }
+
+    // Get the waitlist of a course, oldest first
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryDTO> getWaitlistByCourseId(Integer courseId) {
+        if (!courseRepo.existsById(courseId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found with id: " + courseId);
+        }
+        return waitlistRepo.findByCourseIdInOrder(courseId).stream()
+                .map(WaitlistEntryDTO::new)
+                .collect(Collectors.toList());
+    }
+
+    // Take a student off a waitlist
+    public void leaveWaitlist(Integer id) {
+        if (!waitlistRepo.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Waitlist entry not found with id: " + id);
+        }
+        waitlistRepo.deleteById(id);
+    }
+
+    // Move waiting students into free seats of the given courses, all in one transaction
+    // called by WaitlistPromoter off the request threads, returns how many students were registered
+    @Transactional
+    public int promote(Collection<Integer> courseIds) {
+        int promoted = 0;
+        for (Integer courseId : courseIds) {
+            promoted += promoteCourse(courseId);
+        }
+        return promoted;
+    }
+
+    // Courses with someone waiting and a free seat, for the promoter's periodic sweep
+    @Transactional(readOnly = true)
+    public List<Integer> findCoursesToPromote() {
+        return waitlistRepo.findCourseIdsWithFreeSeats();
+    }
+
+    private int promoteCourse(Integer courseId) {
+        List<WaitlistEntry> next = waitlistRepo.findNextForUpdate(courseId, Limit.of(batchSize));
+        if (next.isEmpty()) {
+            return 0;
+        }
+        Course course = courseRepo.findById(courseId).orElse(null);
+        if (course == null) {
+            return 0;
+        }
+        Map<Integer, Student> students = studentRepo.findAllById(next.stream().map(WaitlistEntry::getStudentId).toList()).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+
+        int promoted = 0;
+        for (WaitlistEntry entry : next) {
+            // registered some other way since joining, they don't need the seat
+            if (registrationRepo.existsByStudentIdAndCourseId(entry.getStudentId(), courseId)) {
+                waitlistRepo.delete(entry);
+                continue;
+            }
+            // same atomic seat check as a normal registration, stop once the course is full again
+            if (courseRepo.reserveSeat(courseId) == 0) {
+                break;
+            }
+            registrationRepo.save(new Registration(students.get(entry.getStudentId()), course));
+            waitlistRepo.delete(entry);
+            promoted++;
+        }
+        return promoted;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.registration.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// RFC 4180 CSV, used by the registration export, the student import and the COPY into PostgreSQL
+public final class Csv {
+
+    private Csv() {
+    }
+
+    // quotes a value only when it needs it, null becomes an empty field and "" a quoted empty string
+    // (PostgreSQL's COPY reads the first as NULL and the second as an empty string)
+    public static String field(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // splits a whole document into records of fields, quoted fields may contain commas, quotes and line breaks
+    // blank lines are skipped
+    public static List<List<String>> parse(String text) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                record.add(field.toString());
+                field.setLength(0);
+                if (!isBlank(record)) {
+                    records.add(record);
+                }
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        // last record without a trailing line break
+        if (!field.isEmpty() || !record.isEmpty()) {
+            record.add(field.toString());
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static boolean isBlank(List<String> record) {
+        return record.size() == 1 && record.get(0).isEmpty();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.registration.util;
+
+// ETag header values for the conditional GETs of the API
+public final class ETags {
+
+    private ETags() {
+    }
+
+    // weak, the same version is sent as JSON, CBOR or Smile and gzip-compressed or not, so the bytes differ
+    // Tomcat's compression also leaves any response with a strong ETag uncompressed
+    public static String weak(Object version) {
+        return "W/\"" + version + "\"";
+    }
+}
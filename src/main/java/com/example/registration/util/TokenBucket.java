@@ -0,0 +1,48 @@
+package com.example.registration.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// A token bucket kept as one number, the time at which it would be full again (the generic cell rate algorithm)
+// taking a token is a single compare-and-set, there is no lock and no refill thread
+public final class TokenBucket {
+
+    // time it takes to refill one token
+    private final long refillNanos;
+    // how far ahead of now the bucket may be drawn, capacity - 1 tokens' worth
+    private final long burstNanos;
+    // when the bucket would be full again if nothing else were taken, in System.nanoTime() time
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(long capacity, double refillPerSecond) {
+        if (capacity < 1 || !(refillPerSecond > 0)) {
+            throw new IllegalArgumentException("A bucket needs a capacity of at least 1 and a positive refill rate");
+        }
+        this.refillNanos = Math.max(1, Math.round(1_000_000_000 / refillPerSecond));
+        this.burstNanos = (capacity - 1) * refillNanos;
+    }
+
+    // takes a token, returns 0 if there was one, otherwise how many nanoseconds until there will be
+    public long tryTake(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long from = Math.max(current, now);
+            long wait = from - burstNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, from + refillNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    // how many nanoseconds until a token can be taken, 0 if one can be now, without taking it
+    public long waitNanos(long now) {
+        return Math.max(0, Math.max(fullAt.get(), now) - burstNanos - now);
+    }
+
+    // an untouched bucket is full again after this long, it can be dropped and started over with nothing lost
+    public long refillAllNanos() {
+        return burstNanos + refillNanos;
+    }
+}
@@ -0,0 +1,30 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+// Registration ids move from IDENTITY to registrations_seq, handed out by Hibernate in blocks of 50 so inserts batch
+// the sequence has to start past the ids the first release already gave out, computed here since
+// CREATE SEQUENCE only takes a constant and H2 (used by the load harness) has no setval
+public class V2__registration_id_sequence extends BaseJavaMigration {
+
+    // Hibernate's pooled ids run from a value 49 below the one the sequence returns, so one block is skipped
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long maxId;
+            try (ResultSet max = statement.executeQuery("select coalesce(max(registration_id), 0) from registrations")) {
+                max.next();
+                maxId = max.getLong(1);
+            }
+            statement.execute("create sequence registrations_seq start with " + (maxId + ALLOCATION_SIZE + 1)
+                    + " increment by " + ALLOCATION_SIZE);
+            statement.execute("alter table registrations alter column registration_id drop identity");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+-- the schema of the first release, as its ddl-auto=update created it
+-- databases created by that release are baselined at this version instead of running it, and get V2 onwards
+
+create table student (
+    student_id integer generated by default as identity,
+    email varchar(255),
+    name varchar(255),
+    password varchar(255),
+    primary key (student_id)
+);
+
+create table course (
+    course_id integer generated by default as identity,
+    description varchar(255),
+    title varchar(255),
+    primary key (course_id)
+);
+
+create table registrations (
+    registration_id integer generated by default as identity,
+    student_id integer,
+    course_id integer,
+    student_name varchar(255),
+    student_email varchar(255),
+    course_name varchar(255),
+    primary key (registration_id),
+    constraint fk_registrations_student foreign key (student_id) references student,
+    constraint fk_registrations_course foreign key (course_id) references course
+);
@@ -0,0 +1,9 @@
+-- a student can only be registered for a course once
+-- the first release didn't enforce it, so duplicates are removed first, keeping the oldest registration of each pair
+delete from registrations r
+where exists (select 1 from registrations older
+              where older.student_id = r.student_id
+                and older.course_id = r.course_id
+                and older.registration_id < r.registration_id);
+
+alter table registrations add constraint uk_registrations_student_course unique (student_id, course_id);
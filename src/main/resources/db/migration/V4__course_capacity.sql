@@ -0,0 +1,6 @@
+-- per-course capacity, null means no limit, and the count of registrations holding a seat
+-- seats_taken starts out as the number of registrations each course already has
+alter table course add column capacity integer;
+alter table course add column seats_taken integer default 0 not null;
+
+update course c set seats_taken = (select count(*) from registrations r where r.course_id = c.course_id);
@@ -0,0 +1,13 @@
+-- per-course FIFO waitlist, ids from a sequence in blocks of 50 like registrations
+create sequence waitlist_entries_seq start with 1 increment by 50;
+
+create table waitlist_entries (
+    waitlist_id integer not null,
+    student_id integer,
+    course_id integer,
+    created_at timestamp(6) with time zone not null,
+    primary key (waitlist_id),
+    constraint uk_waitlist_entries_student_course unique (student_id, course_id),
+    constraint fk_waitlist_entries_student foreign key (student_id) references student,
+    constraint fk_waitlist_entries_course foreign key (course_id) references course
+);
@@ -0,0 +1,12 @@
+-- lookups by student_id on registrations and waitlist_entries already use the leading column
+-- of their (student_id, course_id) unique constraints
+
+-- existsByCourseId, the course rename chunks (course_id, then registration_id order),
+-- and the foreign key check when a course is deleted
+create index if not exists idx_registrations_course_id on registrations (course_id, registration_id);
+
+-- findByEmail on every login and HTTP Basic request, and the taken-email check of the student import
+create index if not exists idx_student_email on student (email);
+
+-- a course's waitlist in line order, for findByCourseIdInOrder and findNextForUpdate
+create index if not exists idx_waitlist_entries_course_id on waitlist_entries (course_id, created_at, waitlist_id);
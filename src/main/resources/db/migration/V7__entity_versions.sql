@@ -0,0 +1,5 @@
+-- optimistic lock versions, bumped on every JPA update and sent as each resource's ETag
+-- the default covers rows that already exist and the student import's COPY, which doesn't list the column
+alter table course add column if not exists version bigint not null default 0;
+alter table student add column if not exists version bigint not null default 0;
+alter table registrations add column if not exists version bigint not null default 0;
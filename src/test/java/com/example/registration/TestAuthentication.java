@@ -0,0 +1,216 @@
+package com.example.registration;
+
+import com.example.registration.config.EntityCacheConfig;
+import com.example.registration.config.EntityCacheProperties;
+import com.example.registration.config.TokenProperties;
+import com.example.registration.dto.LoginRequestDTO;
+import com.example.registration.dto.TokenResponseDTO;
+import com.example.registration.model.Student;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import com.example.registration.repository.StudentRepository;
+import com.example.registration.service.TokenService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class TestAuthentication {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TokenProperties tokenProperties;
+
+    @Autowired
+    private EntityCacheProperties entityCacheProperties;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setupStudent() {
+        Student authUser = new Student();
+        authUser.setName("TestStudent");
+        authUser.setEmail("TestStudentEmail@gmail.com");
+        authUser.setPassword("password");
+
+        // this endpoint is public, no authentication
+        restTemplate.postForEntity("/api/students", authUser, Student.class);
+    }
+
+    @AfterEach
+    public void deleteAllData() {
+        registrationRepository.deleteAll();
+        studentRepository.deleteAll();
+        courseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/login - Return a bearer token that authenticates later requests")
+    void login() {
+        ResponseEntity<TokenResponseDTO> response = restTemplate.postForEntity(
+                "/api/auth/login",
+                new LoginRequestDTO("TestStudentEmail@gmail.com", "password"),
+                TokenResponseDTO.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertNotNull(response.getBody().getToken());
+        assertEquals("Bearer", response.getBody().getTokenType());
+
+        ResponseEntity<String> courses = getCoursesWithToken(response.getBody().getToken());
+        assertEquals(HttpStatus.OK, courses.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Look the HTTP Basic user up in the query cache after the first request")
+    void basicAuthentication_QueryCache() {
+        TestRestTemplate authenticated = restTemplate.withBasicAuth("TestStudentEmail@gmail.com", "password");
+        assertEquals(HttpStatus.OK, authenticated.getForEntity("/api/courses", String.class).getStatusCode());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(HttpStatus.OK, authenticated.getForEntity("/api/courses", String.class).getStatusCode());
+        assertEquals(1, statistics.getQueryRegionStatistics(EntityCacheConfig.STUDENT_BY_EMAIL_REGION).getHitCount());
+        assertEquals(0, statistics.getQueryRegionStatistics(EntityCacheConfig.STUDENT_BY_EMAIL_REGION).getMissCount());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - See a password changed on another instance once the cached lookup expires")
+    void basicAuthentication_PasswordChangedElsewhere() throws InterruptedException {
+        TestRestTemplate oldPassword = restTemplate.withBasicAuth("TestStudentEmail@gmail.com", "password");
+        assertEquals(HttpStatus.OK, oldPassword.getForEntity("/api/courses", String.class).getStatusCode());
+
+        // written straight to the table, like another instance would, so nothing here hears of it
+        jdbcTemplate.update("update student set password = ? where email = ?",
+                passwordEncoder.encode("changed"), "TestStudentEmail@gmail.com");
+        Thread.sleep(entityCacheProperties.getRegions().get(EntityCacheConfig.STUDENT_BY_EMAIL_REGION).getExpireAfterWrite().plusMillis(500).toMillis());
+
+        assertEquals(HttpStatus.UNAUTHORIZED, oldPassword.getForEntity("/api/courses", String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.withBasicAuth("TestStudentEmail@gmail.com", "changed")
+                .getForEntity("/api/courses", String.class).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/login - Return 401 for a wrong password")
+    void login_WrongPassword() {
+        ResponseEntity<TokenResponseDTO> response = restTemplate.postForEntity(
+                "/api/auth/login",
+                new LoginRequestDTO("TestStudentEmail@gmail.com", "wrong"),
+                TokenResponseDTO.class
+        );
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Return 401 for a tampered bearer token")
+    void tamperedToken() {
+        String token = restTemplate.postForEntity(
+                "/api/auth/login",
+                new LoginRequestDTO("TestStudentEmail@gmail.com", "password"),
+                TokenResponseDTO.class
+        ).getBody().getToken();
+
+        // change the first character of the signature
+        int start = token.indexOf('.') + 1;
+        char first = token.charAt(start);
+        String tampered = token.substring(0, start) + (first == 'A' ? 'B' : 'A') + token.substring(start + 1);
+
+        ResponseEntity<String> response = getCoursesWithToken(tampered);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Return 401 for an expired bearer token")
+    void expiredToken() {
+        // the application's own key, but a token that expired a minute ago
+        TokenService expired = tokenService(tokenProperties.getActiveKeyId(), Duration.ofMinutes(-1));
+
+        ResponseEntity<String> response = getCoursesWithToken(expired.issueToken("TestStudentEmail@gmail.com").getToken());
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Accept tokens of a key still listed after rotation, and 401 for a retired key")
+    void rotatedKeys() {
+        // previous is no longer the active key but is still listed, its tokens stay valid until they expire
+        TokenService previous = tokenService("previous", Duration.ofMinutes(15));
+        assertEquals(HttpStatus.OK, getCoursesWithToken(previous.issueToken("TestStudentEmail@gmail.com").getToken()).getStatusCode());
+
+        // a key that has been removed from auth.token.keys
+        TokenProperties retiredProperties = new TokenProperties();
+        retiredProperties.setActiveKeyId("retired");
+        retiredProperties.setKeys(Map.of("retired", "test-only-secret-retired-0123456789abcdef"));
+        TokenService retired = new TokenService(retiredProperties);
+        ResponseEntity<String> response = getCoursesWithToken(retired.issueToken("TestStudentEmail@gmail.com").getToken());
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("TokenService - Refuse to start without an active key of at least 32 characters")
+    void missingOrShortKey() {
+        // AUTH_TOKEN_SECRET not set
+        TokenProperties unset = new TokenProperties();
+        unset.setActiveKeyId("primary");
+        unset.setKeys(Map.of("primary", ""));
+        assertThrows(IllegalStateException.class, () -> new TokenService(unset));
+
+        TokenProperties shortKey = new TokenProperties();
+        shortKey.setActiveKeyId("primary");
+        shortKey.setKeys(Map.of("primary", "too-short"));
+        assertThrows(IllegalStateException.class, () -> new TokenService(shortKey));
+
+        TokenProperties noKeys = new TokenProperties();
+        noKeys.setActiveKeyId("primary");
+        assertThrows(IllegalStateException.class, () -> new TokenService(noKeys));
+    }
+
+    // a token service with the application's keys, signing with the given one
+    private TokenService tokenService(String activeKeyId, Duration expiry) {
+        TokenProperties properties = new TokenProperties();
+        properties.setActiveKeyId(activeKeyId);
+        properties.setExpiry(expiry);
+        properties.setKeys(tokenProperties.getKeys());
+        return new TokenService(properties);
+    }
+
+    private ResponseEntity<String> getCoursesWithToken(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return restTemplate.exchange("/api/courses", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -1,26 +1,44 @@
 package com.example.registration;
 
+import com.example.registration.config.CacheConfig;
+import com.example.registration.dto.CourseSearchResultDTO;
+import com.example.registration.dto.EnrollmentDTO;
+import com.example.registration.dto.LoginRequestDTO;
+import com.example.registration.dto.RegistrationResponseDTO;
 import com.example.registration.model.Course;
 import com.example.registration.model.Registration;
 import com.example.registration.model.Student;
 import com.example.registration.repository.CourseRepository;
 import com.example.registration.repository.RegistrationRepository;
 import com.example.registration.repository.StudentRepository;
+import com.example.registration.service.CourseService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cache.CacheManager;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// small rename limits, so renaming a course with a few registrations already takes the chunked path
+// and a failed chunked copy is retried quickly
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"registration.rename.sync-limit=2", "registration.rename.chunk-size=2", "registration.rename.retry-delay-ms=200"})
+// tests turn off metric exporters by default, /actuator/prometheus is checked below
+@AutoConfigureObservability(tracing = false)
 public class TestCourse {
 
     @Autowired
@@ -37,6 +55,18 @@ public class TestCourse {
     @Autowired
     private RegistrationRepository registrationRepository;
 
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void setupAuthenticatedUser() {
         Student authUser = new Student();
@@ -128,6 +158,288 @@ public class TestCourse {
         assertEquals("New Test Course", response.getBody().getTitle());
     }
 
+    @Test
+    @DisplayName("PUT /api/courses/{id} - Copy the new title onto the course's registrations")
+    void updateCourse_RenamesRegistrations() {
+        Course course = courseWithRegistrations(1);
+
+        renameCourse(course, "New Test Course");
+
+        // in the same transaction as the rename
+        assertRegistrationTitles(course, "New Test Course");
+    }
+
+    @Test
+    @DisplayName("PUT /api/courses/{id} - Copy the new title onto a large course's registrations in chunks")
+    void updateCourse_RenamesRegistrationsInChunks() throws InterruptedException {
+        Course course = courseWithRegistrations(5);
+
+        renameCourse(course, "New Test Course");
+
+        // copied in the background after the rename commits, wait for it
+        for (int i = 0; i < 50 && registrationRepository.findByCourse(course).stream()
+                .anyMatch(registration -> !"New Test Course".equals(registration.getCourseName())); i++) {
+            Thread.sleep(100);
+        }
+        assertRegistrationTitles(course, "New Test Course");
+    }
+
+    @Test
+    @DisplayName("PUT /api/courses/{id} - Retry copying the title onto registrations after a chunk fails")
+    void updateCourse_RenamesRegistrationsAfterFailedChunk() throws InterruptedException {
+        Course course = courseWithRegistrations(5);
+
+        // every chunk fails until the trigger is dropped
+        jdbcTemplate.execute("create function fail_course_copy() returns trigger language plpgsql as "
+                + "$$ begin raise exception 'course copy failed'; end $$");
+        jdbcTemplate.execute("create trigger fail_course_copy before update of course_name on registrations "
+                + "for each row execute function fail_course_copy()");
+        try {
+            renameCourse(course, "New Test Course");
+
+            // long enough for the copy and a few retries to fail
+            Thread.sleep(1000);
+            assertRegistrationTitles(course, "Test Course");
+        } finally {
+            jdbcTemplate.execute("drop trigger fail_course_copy on registrations");
+            jdbcTemplate.execute("drop function fail_course_copy()");
+        }
+
+        for (int i = 0; i < 50 && registrationRepository.findByCourse(course).stream()
+                .anyMatch(registration -> !"New Test Course".equals(registration.getCourseName())); i++) {
+            Thread.sleep(100);
+        }
+        assertRegistrationTitles(course, "New Test Course");
+    }
+
+    @Test
+    @DisplayName("GET /api/courses/search - Rank title matches first and match word prefixes")
+    void searchCourses() {
+        saveCourse("Intro to Programming", "Variables, loops and functions.");
+        saveCourse("Databases", "Relational modelling and SQL programming.");
+        saveCourse("Art History", "Painting from the renaissance on.");
+
+        ResponseEntity<List<CourseSearchResultDTO>> response = search("program");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(List.of("Intro to Programming", "Databases"),
+                response.getBody().stream().map(CourseSearchResultDTO::getTitle).toList());
+
+        // every word has to match
+        assertEquals(List.of("Databases"),
+                search("sql prog").getBody().stream().map(CourseSearchResultDTO::getTitle).toList());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses/search - Follow course updates and deletes without querying the database")
+    void searchCourses_AfterUpdateAndDelete() {
+        Course course = saveCourse("Intro to Programming", null);
+        Course deleted = saveCourse("Programming Languages", null);
+
+        Course updatedDetails = new Course();
+        updatedDetails.setTitle("Intro to Statistics");
+        authenticationTemplate.exchange("/api/courses/" + course.getId(), HttpMethod.PUT, new HttpEntity<>(updatedDetails), Course.class);
+        authenticationTemplate.exchange("/api/courses/" + deleted.getId(), HttpMethod.DELETE, null, Void.class);
+
+        assertTrue(search("programming").getBody().isEmpty());
+        assertEquals(List.of(course.getId()),
+                search("statistics").getBody().stream().map(CourseSearchResultDTO::getCourseId).toList());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        courseService.searchCourses("statistics", 20);
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses/{id}/enrollment - Count registrations as they are made and removed")
+    void getEnrollment() {
+        Course course = courseWithRegistrations(2);
+
+        ResponseEntity<EnrollmentDTO> response = authenticationTemplate.getForEntity("/api/courses/" + course.getId() + "/enrollment", EnrollmentDTO.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().getEnrolled());
+        assertNull(response.getBody().getSeatsLeft());
+
+        Integer registrationId = registrationRepository.findByCourse(course).getFirst().getRegistrationID();
+        authenticationTemplate.exchange("/api/registrations/" + registrationId, HttpMethod.DELETE, null, Void.class);
+
+        response = authenticationTemplate.getForEntity("/api/courses/" + course.getId() + "/enrollment", EnrollmentDTO.class);
+        assertEquals(1, response.getBody().getEnrolled());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses/enrollment - Return the enrollment of several courses, skipping unknown ids")
+    void getEnrollments() {
+        Course full = courseWithRegistrations(1);
+        Course empty = saveCourse("Empty Course", null);
+        empty.setCapacity(10);
+        empty = courseRepository.save(empty);
+
+        ResponseEntity<List<EnrollmentDTO>> response = authenticationTemplate.exchange(
+                "/api/courses/enrollment?ids=" + full.getId() + "," + empty.getId() + ",0",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().size());
+        assertEquals(1, response.getBody().get(0).getEnrolled());
+        assertEquals(0, response.getBody().get(1).getEnrolled());
+        assertEquals(10, response.getBody().get(1).getSeatsLeft());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses/{id} - Return the updated course after a cached read")
+    void getCourse_AfterUpdate() {
+        Course course = new Course();
+        course.setTitle("Test Course");
+        course = courseRepository.save(course);
+
+        // first read puts the course in the cache
+        authenticationTemplate.getForEntity("/api/courses/" + course.getId(), Course.class);
+
+        Course updatedDetails = new Course();
+        updatedDetails.setTitle("New Test Course");
+        authenticationTemplate.exchange(
+                "/api/courses/" + course.getId(),
+                HttpMethod.PUT,
+                new HttpEntity<>(updatedDetails),
+                Course.class
+        );
+
+        ResponseEntity<Course> response = authenticationTemplate.getForEntity("/api/courses/" + course.getId(), Course.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("New Test Course", response.getBody().getTitle());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Return courses saved after the catalog was cached")
+    void getAllCourses_AfterCachedRead() {
+        courseRepository.save(new Course());
+
+        // first read puts the catalog in the cache
+        authenticationTemplate.exchange("/api/courses", HttpMethod.GET, null, new ParameterizedTypeReference<List<Course>>() {});
+
+        courseRepository.save(new Course());
+
+        ResponseEntity<List<Course>> response = authenticationTemplate.exchange(
+                "/api/courses",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().size());
+
+        // the catalog cache statistics are exposed through actuator
+        ResponseEntity<String> metrics = authenticationTemplate.getForEntity("/actuator/metrics/cache.gets?tag=cache:courseCatalog", String.class);
+        assertEquals(HttpStatus.OK, metrics.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses/{id} - Return 304 for the current ETag without SQL, and a new ETag after an update")
+    void getCourse_NotModified() {
+        Course course = new Course();
+        course.setTitle("Test Course");
+        course = courseRepository.save(course);
+
+        ResponseEntity<Course> first = authenticationTemplate.getForEntity("/api/courses/" + course.getId(), Course.class);
+        String eTag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(eTag);
+
+        // the cached course answers, the authenticated user is a query cache hit
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ResponseEntity<Course> notModified = getIfNoneMatch("/api/courses/" + course.getId(), eTag, Course.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        renameCourse(course, "New Test Course");
+
+        ResponseEntity<Course> modified = getIfNoneMatch("/api/courses/" + course.getId(), eTag, Course.class);
+        assertEquals(HttpStatus.OK, modified.getStatusCode());
+        assertNotNull(modified.getBody());
+        assertEquals("New Test Course", modified.getBody().getTitle());
+        assertNotEquals(eTag, modified.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Return 304 for the current catalog ETag, and a new ETag once a course is created")
+    void getAllCourses_NotModified() {
+        courseRepository.save(new Course());
+
+        ResponseEntity<Course[]> first = authenticationTemplate.getForEntity("/api/courses", Course[].class);
+        String eTag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(eTag);
+
+        // the ETag comes from the rows, so a catalog loaded afresh (another instance, or after a restart) matches it
+        cacheManager.getCache(CacheConfig.COURSE_CATALOG).clear();
+
+        ResponseEntity<Course[]> notModified = getIfNoneMatch("/api/courses", eTag, Course[].class);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+
+        authenticationTemplate.postForEntity("/api/courses", new Course(), Course.class);
+
+        ResponseEntity<Course[]> modified = getIfNoneMatch("/api/courses", eTag, Course[].class);
+        assertEquals(HttpStatus.OK, modified.getStatusCode());
+        assertNotNull(modified.getBody());
+        assertEquals(2, modified.getBody().length);
+        assertNotEquals(eTag, modified.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("GET /actuator/prometheus - Expose service, endpoint, authentication, pool and Hibernate metrics")
+    void prometheusMetrics() {
+        authenticationTemplate.getForEntity("/api/courses", String.class);
+        double failuresBefore = counterValue(scrapePrometheus(), "auth_attempts_total", "method=\"password\"", "result=\"failure\"");
+        double successesBefore = counterValue(scrapePrometheus(), "auth_attempts_total", "method=\"password\"", "result=\"success\"");
+
+        // one failed HTTP Basic request and one failed login
+        restTemplate.withBasicAuth("TestStudentEmail@gmail.com", "wrong").getForEntity("/api/courses", String.class);
+        restTemplate.postForEntity("/api/auth/login", new LoginRequestDTO("TestStudentEmail@gmail.com", "wrong"), String.class);
+
+        String metrics = scrapePrometheus();
+        assertTrue(metrics.contains("service_method_seconds_bucket{"));
+        assertTrue(metrics.contains("method=\"getAllCourses\""));
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(metrics.contains("hikaricp_connections_active{"));
+        assertTrue(metrics.contains("hibernate_statements_total{"));
+        assertEquals(failuresBefore + 2, counterValue(metrics, "auth_attempts_total", "method=\"password\"", "result=\"failure\""));
+        // the scrapes themselves are HTTP Basic requests that succeed
+        assertTrue(counterValue(metrics, "auth_attempts_total", "method=\"password\"", "result=\"success\"") > successesBefore);
+    }
+
+    private String scrapePrometheus() {
+        ResponseEntity<String> response = authenticationTemplate.getForEntity("/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        return response.getBody();
+    }
+
+    // the value of the one sample of a metric that has all the given labels
+    private static double counterValue(String metrics, String name, String... labels) {
+        List<String> samples = metrics.lines()
+                .filter(line -> line.startsWith(name + "{"))
+                .filter(line -> Arrays.stream(labels).allMatch(line::contains))
+                .toList();
+        assertEquals(1, samples.size(), "samples of " + name + " " + Arrays.toString(labels));
+        String sample = samples.getFirst();
+        return Double.parseDouble(sample.substring(sample.lastIndexOf(' ') + 1));
+    }
+
     @Test
     @DisplayName("DELETE /api/courses/{id} - Delete an existing course")
     void deleteCourse() {
@@ -165,4 +477,77 @@ public class TestCourse {
         assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
         assertTrue(courseRepository.existsById(course.getId()));
     }
-}
\ No newline at end of file
+
+    // a course with the given number of students registered through the API, so the seats are taken too
+    // each student's schedule is read once, so it is cached with the old title
+    private Course courseWithRegistrations(int students) {
+        Course course = new Course();
+        course.setTitle("Test Course");
+        course = courseRepository.save(course);
+        for (int i = 0; i < students; i++) {
+            Student student = studentRepository.save(new Student());
+            RegistrationResponseDTO request = new RegistrationResponseDTO();
+            request.setStudentId(student.getId());
+            request.setCourseId(course.getId());
+            authenticationTemplate.postForEntity("/api/registrations", request, RegistrationResponseDTO.class);
+            assertEquals(List.of("Test Course"), scheduleTitles(student.getId()));
+        }
+        return course;
+    }
+
+    private <T> ResponseEntity<T> getIfNoneMatch(String url, String eTag, Class<T> type) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return authenticationTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type);
+    }
+
+    private void renameCourse(Course course, String title) {
+        Course updatedDetails = new Course();
+        updatedDetails.setTitle(title);
+        ResponseEntity<Course> response = authenticationTemplate.exchange(
+                "/api/courses/" + course.getId(),
+                HttpMethod.PUT,
+                new HttpEntity<>(updatedDetails),
+                Course.class
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    // checked through the registration read path, which only reads the copies
+    private void assertRegistrationTitles(Course course, String title) {
+        List<Registration> registrations = registrationRepository.findByCourse(course);
+        assertFalse(registrations.isEmpty());
+        for (Registration registration : registrations) {
+            ResponseEntity<RegistrationResponseDTO> response = authenticationTemplate.getForEntity(
+                    "/api/registrations/" + registration.getRegistrationID(), RegistrationResponseDTO.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertNotNull(response.getBody());
+            assertEquals(title, response.getBody().getCourseTitle());
+            assertEquals(List.of(title), scheduleTitles(registration.getStudentId()));
+        }
+    }
+
+    private List<String> scheduleTitles(Integer studentId) {
+        ResponseEntity<List<RegistrationResponseDTO>> response = authenticationTemplate.exchange(
+                "/api/registrations/studentid/" + studentId,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        return response.getBody().stream().map(RegistrationResponseDTO::getCourseTitle).toList();
+    }
+
+    private Course saveCourse(String title, String description) {
+        Course course = new Course();
+        course.setTitle(title);
+        course.setDescription(description);
+        return courseRepository.save(course);
+    }
+
+    private ResponseEntity<List<CourseSearchResultDTO>> search(String query) {
+        return authenticationTemplate.exchange("/api/courses/search?q=" + query, HttpMethod.GET, null,
+                new ParameterizedTypeReference<>() {});
+    }
+}
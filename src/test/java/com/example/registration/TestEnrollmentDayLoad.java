@@ -0,0 +1,282 @@
+package com.example.registration;
+
+import com.example.registration.dto.EnrollmentDTO;
+import com.example.registration.model.Course;
+import com.example.registration.model.Registration;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Replays an enrollment-day traffic profile against the whole application on one machine
+// the application runs on an in-memory H2 database in PostgreSQL mode, so nothing external is needed
+//
+// phase 1: a burst of sign-ups (POST /api/students) followed by logins
+// phase 2: every student reads the catalog, checks their schedule and registers,
+//          with most registrations aimed at a few small hot courses
+//
+// prints throughput, status counts and latency percentiles per endpoint, then checks no course was overbooked
+// run with: mvn test -Pbenchmark -Dtest=TestEnrollmentDayLoad
+// sizes can be changed with -Dload.students=, -Dload.clients=, -Dload.duration-seconds=
+@Tag("benchmark")
+public class TestEnrollmentDayLoad {
+
+    private static final int STUDENTS = Integer.getInteger("load.students", 500);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 100);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration-seconds", 30));
+
+    // most registrations go to a few hot courses that fill up early
+    private static final int HOT_COURSES = 3;
+    private static final int HOT_CAPACITY = 40;
+    private static final int COLD_COURSES = 47;
+    private static final int COLD_CAPACITY = 500;
+    private static final int HOT_SHARE_PERCENT = 80;
+
+    private static final String PASSWORD = "password";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    @Test
+    @DisplayName("Replay an enrollment-day traffic profile and report per-endpoint latency")
+    void enrollmentDay() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CourseregistrationApplication.class)
+                // command line arguments, so they win over application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:enrollment-day;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        // every simulated student signs up from localhost
+                        "--registration.rate-limit.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.springframework.web=INFO");
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(clients).build()) {
+
+            String baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            List<Course> courses = createCourses(context.getBean(CourseRepository.class));
+
+            // phase 1: sign-ups and logins, at most CLIENTS requests in flight
+            Semaphore inFlight = new Semaphore(CLIENTS);
+            List<Future<Session>> signUps = new ArrayList<>();
+            for (int i = 0; i < STUDENTS; i++) {
+                int n = i;
+                signUps.add(clients.submit(() -> {
+                    inFlight.acquire();
+                    try {
+                        return signUp(client, baseUrl, n);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            List<Session> sessions = new ArrayList<>();
+            for (Future<Session> signUp : signUps) {
+                Session session = signUp.get();
+                if (session != null) {
+                    sessions.add(session);
+                }
+            }
+            assertFalse(sessions.isEmpty(), "no student could sign up and log in");
+
+            // phase 2: CLIENTS students browsing and registering at the same time
+            long end = System.nanoTime() + DURATION.toNanos();
+            List<Future<?>> browsing = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                browsing.add(clients.submit(() -> browse(client, baseUrl, sessions, courses, end)));
+            }
+            for (Future<?> future : browsing) {
+                future.get();
+            }
+
+            report();
+
+            // the point of the hot courses: all of them are contended, none may be overbooked
+            Map<Integer, Long> registeredByCourse = context.getBean(RegistrationRepository.class).findAll().stream()
+                    .collect(Collectors.groupingBy(Registration::getCourseId, Collectors.counting()));
+            CourseRepository courseRepository = context.getBean(CourseRepository.class);
+            for (Course course : courses) {
+                EnrollmentDTO current = courseRepository.findEnrollment(course.getId()).orElseThrow();
+                long registered = registeredByCourse.getOrDefault(course.getId(), 0L);
+                assertTrue(registered <= current.getCapacity(), "course " + course.getId() + " is overbooked");
+                assertEquals(registered, current.getEnrolled(), "seat count of course " + course.getId() + " is off");
+            }
+        }
+    }
+
+    private List<Course> createCourses(CourseRepository courseRepository) {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < HOT_COURSES + COLD_COURSES; i++) {
+            Course course = new Course();
+            course.setTitle((i < HOT_COURSES ? "Hot course " : "Course ") + i);
+            course.setCapacity(i < HOT_COURSES ? HOT_CAPACITY : COLD_CAPACITY);
+            courses.add(course);
+        }
+        // hot courses first, see pickCourse
+        return courseRepository.saveAll(courses);
+    }
+
+    private Session signUp(HttpClient client, String baseUrl, int n) {
+        String email = "loadstudent" + n + "@example.com";
+        String student = "{\"name\":\"LoadStudent" + n + "\",\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+        JsonNode created = send(client, "POST /api/students", post(baseUrl + "/api/students", student, null));
+        if (created == null) {
+            return null;
+        }
+        String login = "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+        JsonNode token = send(client, "POST /api/auth/login", post(baseUrl + "/api/auth/login", login, null));
+        if (token == null) {
+            return null;
+        }
+        return new Session(created.get("id").asInt(), "Bearer " + token.get("token").asText());
+    }
+
+    // one student at a time: mostly catalog reads, then schedule checks and registrations
+    private void browse(HttpClient client, String baseUrl, List<Session> sessions, List<Course> courses, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end) {
+            Session session = sessions.get(random.nextInt(sessions.size()));
+            int pick = random.nextInt(100);
+            if (pick < 60) {
+                send(client, "GET /api/courses", get(baseUrl + "/api/courses", session.authorization()));
+            } else if (pick < 75) {
+                send(client, "GET /api/registrations/studentid/{id}",
+                        get(baseUrl + "/api/registrations/studentid/" + session.studentId(), session.authorization()));
+            } else {
+                String registration = "{\"studentId\":" + session.studentId() + ",\"courseId\":" + pickCourse(courses, random).getId() + "}";
+                send(client, "POST /api/registrations", post(baseUrl + "/api/registrations", registration, session.authorization()));
+            }
+        }
+    }
+
+    private static Course pickCourse(List<Course> courses, ThreadLocalRandom random) {
+        if (random.nextInt(100) < HOT_SHARE_PERCENT) {
+            return courses.get(random.nextInt(HOT_COURSES));
+        }
+        return courses.get(HOT_COURSES + random.nextInt(COLD_COURSES));
+    }
+
+    // records latency and status under the endpoint name, returns the parsed body of a 2xx response
+    private JsonNode send(HttpClient client, String endpoint, HttpRequest request) {
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, name -> new EndpointStats());
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            endpointStats.record(response.statusCode(), start, System.nanoTime());
+            if (response.statusCode() / 100 != 2) {
+                return null;
+            }
+            return response.body().isEmpty() ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+        } catch (Exception e) {
+            // connection failures and timeouts are counted as status 0
+            endpointStats.record(0, start, System.nanoTime());
+            return null;
+        }
+    }
+
+    private static HttpRequest get(String url, String authorization) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", authorization)
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest post(String url, String body, String authorization) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder.build();
+    }
+
+    private void report() {
+        System.out.printf("%-40s %8s %8s %8s %8s %8s %8s  %s%n", "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "statuses");
+        new TreeMap<>(stats).forEach((endpoint, endpointStats) -> {
+            List<Long> latencies = endpointStats.sortedLatencies();
+            System.out.printf("%-40s %8d %8.1f %8.1f %8.1f %8.1f %8.1f  %s%n", endpoint, latencies.size(),
+                    endpointStats.throughput(),
+                    percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                    percentile(latencies, 1.0), endpointStats.statuses());
+        });
+    }
+
+    private static double percentile(List<Long> sortedLatencies, double percentile) {
+        if (sortedLatencies.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedLatencies.size()) - 1;
+        return sortedLatencies.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+
+    private record Session(int studentId, String authorization) {
+    }
+
+    private static class EndpointStats {
+
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAccumulator firstStart = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator lastEnd = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        void record(int status, long startNanos, long endNanos) {
+            latencies.add(endNanos - startNanos);
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            firstStart.accumulate(startNanos);
+            lastEnd.accumulate(endNanos);
+        }
+
+        // requests per second over the time this endpoint was being called
+        double throughput() {
+            long elapsed = lastEnd.get() - firstStart.get();
+            return elapsed <= 0 ? 0 : latencies.size() / (elapsed / 1_000_000_000.0);
+        }
+
+        List<Long> sortedLatencies() {
+            List<Long> sorted;
+            synchronized (latencies) {
+                sorted = new ArrayList<>(latencies);
+            }
+            sorted.sort(null);
+            return sorted;
+        }
+
+        Map<Integer, Long> statuses() {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            return counts;
+        }
+    }
+}
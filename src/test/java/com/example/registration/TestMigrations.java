@@ -0,0 +1,83 @@
+package com.example.registration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// upgrades a database the way the first release left it, baselined at V1, in a schema of its own
+@SpringBootTest
+public class TestMigrations {
+
+    private static final String SCHEMA = "first_release";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("drop schema if exists " + SCHEMA + " cascade");
+    }
+
+    @Test
+    @DisplayName("Upgrade a first release database")
+    void upgradeFirstRelease() {
+        // the tables as ddl-auto=update created them, foreign keys under Hibernate's generated names
+        jdbcTemplate.execute("create schema " + SCHEMA);
+        jdbcTemplate.execute("create table " + SCHEMA + ".student (student_id integer generated by default as identity,"
+                + " email varchar(255), name varchar(255), password varchar(255), primary key (student_id))");
+        jdbcTemplate.execute("create table " + SCHEMA + ".course (course_id integer generated by default as identity,"
+                + " description varchar(255), title varchar(255), primary key (course_id))");
+        jdbcTemplate.execute("create table " + SCHEMA + ".registrations (registration_id integer generated by default as identity,"
+                + " student_id integer, course_id integer, student_name varchar(255), student_email varchar(255),"
+                + " course_name varchar(255), primary key (registration_id),"
+                + " constraint fk8hgcj4nmqrsb6i8rmqbn9ohkr foreign key (student_id) references " + SCHEMA + ".student,"
+                + " constraint fkh4u8lw8ukkkd5ifi6bv7ugc7p foreign key (course_id) references " + SCHEMA + ".course)");
+
+        jdbcTemplate.update("insert into " + SCHEMA + ".student (student_id, name, email) values (1, 'Ann', 'ann@example.com'), (2, 'Bo', 'bo@example.com')");
+        jdbcTemplate.update("insert into " + SCHEMA + ".course (course_id, title) values (1, 'Math'), (2, 'Art')");
+        // Ann registered for Math twice, the first release didn't stop it
+        jdbcTemplate.update("insert into " + SCHEMA + ".registrations (registration_id, student_id, course_id) values"
+                + " (7, 1, 1), (42, 1, 1), (97, 2, 1), (120, 2, 2)");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(SCHEMA)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        // the duplicate is gone, the oldest registration of the pair kept, and a new one is refused
+        assertEquals(List.of(7, 97, 120), jdbcTemplate.queryForList(
+                "select registration_id from " + SCHEMA + ".registrations order by registration_id", Integer.class));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "insert into " + SCHEMA + ".registrations (registration_id, student_id, course_id) values (1000, 1, 1)"));
+
+        // seats_taken counts the registrations each course already had, capacity starts unlimited
+        List<Map<String, Object>> courses = jdbcTemplate.queryForList(
+                "select seats_taken, capacity from " + SCHEMA + ".course order by course_id");
+        assertEquals(2, courses.get(0).get("seats_taken"));
+        assertEquals(1, courses.get(1).get("seats_taken"));
+        assertNull(courses.get(0).get("capacity"));
+
+        // the lowest id of the first block Hibernate allocates from the sequence is past the existing ids
+        Long next = jdbcTemplate.queryForObject("select nextval('" + SCHEMA + ".registrations_seq')", Long.class);
+        assertTrue(next - 49 > 120, "sequence starts at " + next);
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from " + SCHEMA + ".waitlist_entries", Integer.class));
+    }
+}
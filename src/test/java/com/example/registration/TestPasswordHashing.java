@@ -0,0 +1,36 @@
+package com.example.registration;
+
+import com.example.registration.service.PasswordHasher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the default pool, one thread per core: an import holds all but one of them, or the only one a slice at a time
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class TestPasswordHashing {
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Test
+    @DisplayName("A single password is hashed while a large import is still hashing")
+    void encodeAsync_NotQueuedBehindImport() throws Exception {
+        List<String> passwords = Collections.nCopies(96, "password");
+        CompletableFuture<List<String>> importing = CompletableFuture.supplyAsync(() -> passwordHasher.encodeAll(passwords));
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        String hash = passwordHasher.encodeAsync("password").get(10, TimeUnit.SECONDS);
+
+        assertNotNull(hash);
+        assertFalse(importing.isDone());
+        assertEquals(96, importing.get(60, TimeUnit.SECONDS).size());
+    }
+}
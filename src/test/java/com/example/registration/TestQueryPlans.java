@@ -0,0 +1,260 @@
+package com.example.registration;
+
+import com.example.registration.model.Course;
+import com.example.registration.model.Registration;
+import com.example.registration.model.Student;
+import com.example.registration.model.WaitlistEntry;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import com.example.registration.repository.StudentRepository;
+import com.example.registration.repository.WaitlistRepository;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs EXPLAIN on the SQL of every repository query that looks rows up by a column, and fails on a sequential scan
+// the SQL is recorded from Hibernate while each query runs against seeded data, then explained as a generic plan
+//
+// sequential scans are turned off for the EXPLAIN, so a Seq Scan in the plan means no index can serve the query
+// at all, rather than the planner preferring a scan of a table this small
+@SpringBootTest
+public class TestQueryPlans {
+
+    private static final int STUDENTS = 500;
+    private static final int COURSES = 20;
+    private static final int COURSES_PER_STUDENT = 5;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecordingStatementInspector inspector;
+
+    private Student student;
+    private Course course;
+
+    @TestConfiguration
+    static class StatementRecording {
+
+        @Bean
+        RecordingStatementInspector recordingStatementInspector() {
+            return new RecordingStatementInspector();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspector(RecordingStatementInspector inspector) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    // keeps the SQL of every statement Hibernate prepares while recording is on
+    static class RecordingStatementInspector implements StatementInspector {
+
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean recording;
+
+        @Override
+        public String inspect(String sql) {
+            if (recording) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < COURSES; i++) {
+            Course newCourse = new Course();
+            newCourse.setTitle("Course" + i);
+            // full, so the waitlist sweep of any running context never promotes the seeded waitlist entries
+            newCourse.setCapacity(0);
+            courses.add(newCourse);
+        }
+        courses = courseRepository.saveAll(courses);
+
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student newStudent = new Student();
+            newStudent.setName("Student" + i);
+            newStudent.setEmail("student" + i + "@example.com");
+            students.add(newStudent);
+        }
+        students = studentRepository.saveAll(students);
+
+        List<Registration> registrations = new ArrayList<>();
+        List<WaitlistEntry> waitlist = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            for (int j = 0; j < COURSES_PER_STUDENT; j++) {
+                registrations.add(new Registration(students.get(i), courses.get((i + j) % COURSES)));
+            }
+            WaitlistEntry entry = new WaitlistEntry();
+            entry.setStudent(students.get(i));
+            entry.setCourse(courses.get((i + COURSES_PER_STUDENT) % COURSES));
+            entry.setCreatedAt(Instant.now());
+            waitlist.add(entry);
+        }
+        registrationRepository.saveAll(registrations);
+        waitlistRepository.saveAll(waitlist);
+
+        jdbcTemplate.execute("analyze student, course, registrations, waitlist_entries");
+        student = students.get(STUDENTS / 2);
+        course = courses.get(COURSES / 2);
+    }
+
+    @AfterEach
+    void deleteAllData() {
+        waitlistRepository.deleteAll();
+        registrationRepository.deleteAll();
+        studentRepository.deleteAll();
+        courseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("RegistrationRepository - Every lookup by student or course uses an index")
+    void registrationQueriesUseIndexes() {
+        assertNoSequentialScans(() -> {
+            registrationRepository.existsByStudentId(student.getId());
+            registrationRepository.existsByCourseId(course.getId());
+            registrationRepository.existsByStudentIdAndCourseId(student.getId(), course.getId());
+            registrationRepository.findByStudentId(student.getId());
+            registrationRepository.findByStudent(student);
+            registrationRepository.findByCourse(course);
+            registrationRepository.findStudentCourseIdsByStudentIdIn(List.of(student.getId()));
+            registrationRepository.findDTOsByStudentId(student.getId());
+            registrationRepository.findDTOPageAfter(0, Limit.of(100));
+            registrationRepository.findIdsByCourseIdAfter(course.getId(), 0, Limit.of(100));
+            registrationRepository.updateStudentCopies(student.getId(), "Student", "student@example.com");
+            registrationRepository.updateCourseCopies(course.getId(), "Course");
+            registrationRepository.updateCourseCopies(course.getId(), 0, Integer.MAX_VALUE);
+        });
+    }
+
+    @Test
+    @DisplayName("StudentRepository - Lookups by email use an index")
+    void studentQueriesUseIndexes() {
+        assertNoSequentialScans(() -> {
+            studentRepository.findByEmail(student.getEmail());
+            studentRepository.findCredentialsByEmail(student.getEmail());
+            studentRepository.findExistingEmails(List.of(student.getEmail(), "nobody@example.com"));
+        });
+    }
+
+    @Test
+    @DisplayName("WaitlistRepository and CourseRepository - Every lookup by student or course uses an index")
+    void waitlistAndCourseQueriesUseIndexes() {
+        assertNoSequentialScans(() -> {
+            waitlistRepository.existsByStudentIdAndCourseId(student.getId(), course.getId());
+            waitlistRepository.existsByCourseId(course.getId());
+            waitlistRepository.findByCourseIdInOrder(course.getId());
+            waitlistRepository.findNextForUpdate(course.getId(), Limit.of(10));
+            waitlistRepository.findStudentIdsInOrder(course.getId(), Limit.of(1));
+            waitlistRepository.findCourseIdsWithWaitlist(List.of(course.getId()));
+            waitlistRepository.deleteByStudentIdAndCourseId(student.getId(), course.getId());
+            waitlistRepository.deleteByStudentId(student.getId());
+            waitlistRepository.deleteByCourseId(course.getId());
+            courseRepository.reserveSeat(course.getId());
+            courseRepository.releaseSeat(course.getId());
+            courseRepository.findAllByIdForUpdate(List.of(course.getId()));
+            courseRepository.findEnrollment(course.getId());
+            courseRepository.findEnrollments(List.of(course.getId()));
+        });
+    }
+
+    // runs the queries in a transaction that is rolled back, then explains every statement they sent
+    private void assertNoSequentialScans(Runnable queries) {
+        inspector.statements.clear();
+        inspector.recording = true;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                queries.run();
+                status.setRollbackOnly();
+            });
+        } finally {
+            inspector.recording = false;
+        }
+
+        List<String> statements = List.copyOf(inspector.statements);
+        assertFalse(statements.isEmpty());
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains("Seq Scan"), "sequential scan for: " + sql + "\n" + plan);
+        }
+    }
+
+    // EXPLAIN (GENERIC_PLAN) plans the statement with its parameters left unbound, as $1, $2, ...
+    private String explain(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        // a connection of its own, pgjdbc only leaves $n parameters unbound in the simple query protocol
+        Properties settings = new Properties();
+        settings.setProperty("user", dataSourceProperties.getUsername());
+        settings.setProperty("password", dataSourceProperties.getPassword());
+        settings.setProperty("preferQueryMode", "simple");
+        try (Connection connection = DriverManager.getConnection(dataSourceProperties.getUrl(), settings);
+             Statement statement = connection.createStatement()) {
+            statement.execute("set enable_seqscan = off");
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rows = statement.executeQuery("explain (generic_plan) " + numbered)) {
+                while (rows.next()) {
+                    plan.append(rows.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not explain: " + sql, e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.registration;
+
+import com.example.registration.config.AuthenticationMetrics;
+import com.example.registration.config.RateLimitFilter;
+import com.example.registration.model.Course;
+import com.example.registration.model.Student;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.StudentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// small buckets that take minutes to refill, so every request past the capacity is turned away within a test
+// each test uses students of its own, the buckets outlive a test
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "registration.rate-limit.sign-up.capacity=3",
+                "registration.rate-limit.sign-up.refill-per-second=0.01",
+                "registration.rate-limit.writes.capacity=2",
+                "registration.rate-limit.writes.refill-per-second=0.01",
+                "registration.rate-limit.reads.capacity=5",
+                "registration.rate-limit.reads.refill-per-second=0.01",
+                "registration.rate-limit.failed-sign-in.capacity=3",
+                "registration.rate-limit.failed-sign-in.refill-per-second=0.01"
+        }
+)
+public class TestRateLimit {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void deleteAllData() {
+        studentRepository.deleteAll();
+        courseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("POST /api/students - Return 429 with Retry-After once a client IP has used up its sign-ups")
+    void createStudent_RateLimited() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HttpStatus.CREATED, signUp("student" + i + "@gmail.com").getStatusCode());
+        }
+
+        ResponseEntity<String> response = signUp("student3@gmail.com");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        // one sign-up every 100 seconds
+        long retryAfter = Long.parseLong(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(retryAfter > 0 && retryAfter <= 100);
+        assertTrue(studentRepository.findByEmail("student3@gmail.com").isEmpty());
+        assertEquals(1, meterRegistry.get(RateLimitFilter.REJECTED).tag("limit", "sign-up").counter().count());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Limit reads per student, apart from other students and from writes")
+    void getAllCourses_RateLimitedPerStudent() {
+        TestRestTemplate alice = authenticated(seedStudent("alice@gmail.com"));
+        TestRestTemplate bob = authenticated(seedStudent("bob@gmail.com"));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HttpStatus.OK, alice.getForEntity("/api/courses", String.class).getStatusCode());
+        }
+        ResponseEntity<String> limited = alice.getForEntity("/api/courses", String.class);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getStatusCode());
+        assertNotNull(limited.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        // from the same IP, but another student
+        assertEquals(HttpStatus.OK, bob.getForEntity("/api/courses", String.class).getStatusCode());
+        // writes have a bucket of their own
+        assertEquals(HttpStatus.CREATED, alice.postForEntity("/api/courses", new Course(), Course.class).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("POST /api/courses - Limit writes per student, leaving their reads alone")
+    void createCourse_RateLimited() {
+        TestRestTemplate carol = authenticated(seedStudent("carol@gmail.com"));
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(HttpStatus.CREATED, carol.postForEntity("/api/courses", new Course(), Course.class).getStatusCode());
+        }
+        ResponseEntity<String> limited = carol.postForEntity("/api/courses", new Course(), String.class);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getStatusCode());
+        assertEquals(2, courseRepository.count());
+        assertEquals(HttpStatus.OK, carol.getForEntity("/api/courses", String.class).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Leave the failed sign-in limit to password checks, rejected bearer tokens don't count")
+    void bearerAuthentication_FailuresNotLimited() {
+        Student erin = seedStudent("erin@gmail.com");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth("expired.or.forged");
+
+        // more than the failed sign-in capacity
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HttpStatus.UNAUTHORIZED, restTemplate.exchange("/api/courses", HttpMethod.GET, new HttpEntity<>(headers), String.class).getStatusCode());
+        }
+
+        assertEquals(HttpStatus.OK, authenticated(erin).getForEntity("/api/courses", String.class).getStatusCode());
+        assertEquals(0, meterRegistry.get(RateLimitFilter.REJECTED).tag("limit", "failed-sign-in").counter().count());
+    }
+
+    // the IP stays blocked, the buckets go with the context so the other tests can sign in
+    @Test
+    @DirtiesContext
+    @DisplayName("GET /api/courses - Return 429 to an IP sending wrong passwords, before checking the password")
+    void basicAuthentication_FailuresRateLimited() {
+        Student dave = seedStudent("dave@gmail.com");
+        TestRestTemplate guessing = restTemplate.withBasicAuth(dave.getEmail(), "wrong");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HttpStatus.UNAUTHORIZED, guessing.getForEntity("/api/courses", String.class).getStatusCode());
+        }
+        ResponseEntity<String> limited = guessing.getForEntity("/api/courses", String.class);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getStatusCode());
+        assertNotNull(limited.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        // even the right password is turned away from that IP, without a BCrypt check
+        double passwordChecks = meterRegistry.get(AuthenticationMetrics.ATTEMPTS).tag("method", "password").counters()
+                .stream().mapToDouble(counter -> counter.count()).sum();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, authenticated(dave).getForEntity("/api/courses", String.class).getStatusCode());
+        assertEquals(passwordChecks, meterRegistry.get(AuthenticationMetrics.ATTEMPTS).tag("method", "password").counters()
+                .stream().mapToDouble(counter -> counter.count()).sum());
+        assertEquals(2, meterRegistry.get(RateLimitFilter.REJECTED).tag("limit", "failed-sign-in").counter().count());
+    }
+
+    private ResponseEntity<String> signUp(String email) {
+        Student student = new Student();
+        student.setName("Student");
+        student.setEmail(email);
+        student.setPassword("password");
+        return restTemplate.postForEntity("/api/students", student, String.class);
+    }
+
+    // saved directly, so seeding doesn't use up the sign-up limit
+    private Student seedStudent(String email) {
+        Student student = new Student();
+        student.setName("Student");
+        student.setEmail(email);
+        student.setPassword(passwordEncoder.encode("password"));
+        return studentRepository.save(student);
+    }
+
+    private TestRestTemplate authenticated(Student student) {
+        return restTemplate.withBasicAuth(student.getEmail(), "password");
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.registration;
+
+import com.example.registration.config.ReplicaDataSource;
+import com.example.registration.dto.RegistrationResponseDTO;
+import com.example.registration.model.Course;
+import com.example.registration.model.Student;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import com.example.registration.repository.StudentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// two replicas: one that can't be reached, and the test database itself under another application_name,
+// so the connection a transaction ended up on can be told apart from the primary's
+// the replica looks in a "stale" schema first, tables copied there stand for a replica that hasn't caught up
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "registration.datasource.replicas[0].url=jdbc:postgresql://localhost:1/registration_db",
+        "registration.datasource.replicas[1].url=${spring.datasource.url}&ApplicationName=replica&currentSchema=stale,public"
+})
+public class TestReadReplicaRouting {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private ReplicaDataSource replicaDataSource;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void deleteAllData() {
+        jdbcTemplate.execute("drop schema if exists stale cascade");
+        registrationRepository.deleteAll();
+        studentRepository.deleteAll();
+        courseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Read-only transactions use a replica, the others the primary")
+    void readOnlyTransactionsUseReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        assertEquals("replica", readOnly.execute(status -> applicationName()));
+        assertNotEquals("replica", readWrite.execute(status -> applicationName()));
+    }
+
+    @Test
+    @DisplayName("A replica that can't be reached is skipped")
+    void unreachableReplicaSkipped() {
+        replicaDataSource.checkReplicas();
+
+        assertEquals(1, replicaDataSource.availableReplicas());
+    }
+
+    @Test
+    @DisplayName("GET /api/students - Read a student written through the primary")
+    void readAfterWrite() {
+        Student authUser = new Student();
+        authUser.setName("TestStudent");
+        authUser.setEmail("TestStudentEmail@gmail.com");
+        authUser.setPassword("password");
+        restTemplate.postForEntity("/api/students", authUser, Student.class);
+
+        ResponseEntity<List<Map<String, Object>>> response = restTemplate.withBasicAuth("TestStudentEmail@gmail.com", "password")
+                .exchange("/api/students", HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().size());
+    }
+
+    @Test
+    @DisplayName("GET /api/courses and schedules - Refill caches from the primary after an update, while the replica is behind")
+    void cacheRefillAfterUpdate() {
+        TestRestTemplate authenticated = signUp();
+        Student student = studentRepository.findByEmail("TestStudentEmail@gmail.com").orElseThrow();
+        Course course = new Course();
+        course.setTitle("Old Title");
+        course = courseRepository.save(course);
+        RegistrationResponseDTO requestDto = new RegistrationResponseDTO();
+        requestDto.setStudentId(student.getId());
+        requestDto.setCourseId(course.getId());
+        assertEquals(HttpStatus.CREATED, authenticated.postForEntity("/api/registrations", requestDto, Object.class).getStatusCode());
+
+        // fill the caches
+        assertEquals(List.of("Old Title"), catalogTitles(authenticated));
+        assertEquals(List.of("Old Title"), scheduleTitles(authenticated, student));
+
+        // the replica stops here, the rename below never reaches it
+        jdbcTemplate.execute("create schema stale");
+        jdbcTemplate.execute("create table stale.course as select * from public.course");
+        jdbcTemplate.execute("create table stale.registrations as select * from public.registrations");
+
+        Course updatedDetails = new Course();
+        updatedDetails.setTitle("New Title");
+        ResponseEntity<Course> updated = authenticated.exchange(
+                "/api/courses/" + course.getId(), HttpMethod.PUT, new HttpEntity<>(updatedDetails), Course.class);
+        assertEquals(HttpStatus.OK, updated.getStatusCode());
+        // so the course by id is read from the database too, not from the second-level cache
+        entityManagerFactory.getCache().evict(Course.class);
+
+        assertEquals(List.of("New Title"), catalogTitles(authenticated));
+        assertEquals("New Title", authenticated.getForEntity("/api/courses/" + course.getId(), Course.class).getBody().getTitle());
+        assertEquals(List.of("New Title"), scheduleTitles(authenticated, student));
+    }
+
+    @Test
+    @DisplayName("PUT /api/students/{id} - Update a student twice while the replica is behind")
+    void updateWhileReplicaBehind() {
+        TestRestTemplate authenticated = signUp();
+        Student student = studentRepository.findByEmail("TestStudentEmail@gmail.com").orElseThrow();
+
+        // the replica stops here, with the student still at its first version
+        jdbcTemplate.execute("create schema stale");
+        jdbcTemplate.execute("create table stale.student as select * from public.student");
+
+        for (String name : List.of("First Rename", "Second Rename")) {
+            Student updatedDetails = new Student();
+            updatedDetails.setName(name);
+            updatedDetails.setEmail("TestStudentEmail@gmail.com");
+            // so the student is read from the database, not from the second-level cache
+            entityManagerFactory.getCache().evict(Student.class);
+
+            ResponseEntity<Student> updated = authenticated.exchange(
+                    "/api/students/" + student.getId(), HttpMethod.PUT, new HttpEntity<>(updatedDetails), Student.class);
+            assertEquals(HttpStatus.OK, updated.getStatusCode());
+            assertEquals(name, updated.getBody().getName());
+        }
+    }
+
+    private TestRestTemplate signUp() {
+        Student authUser = new Student();
+        authUser.setName("TestStudent");
+        authUser.setEmail("TestStudentEmail@gmail.com");
+        authUser.setPassword("password");
+        restTemplate.postForEntity("/api/students", authUser, Student.class);
+        return restTemplate.withBasicAuth("TestStudentEmail@gmail.com", "password");
+    }
+
+    private List<String> catalogTitles(TestRestTemplate authenticated) {
+        ResponseEntity<List<Course>> response = authenticated.exchange("/api/courses", HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody().stream().map(Course::getTitle).toList();
+    }
+
+    private List<String> scheduleTitles(TestRestTemplate authenticated, Student student) {
+        ResponseEntity<List<RegistrationResponseDTO>> response = authenticated.exchange(
+                "/api/registrations/studentid/" + student.getId(), HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody().stream().map(RegistrationResponseDTO::getCourseTitle).toList();
+    }
+
+    private String applicationName() {
+        return jdbcTemplate.queryForObject("select current_setting('application_name')", String.class);
+    }
+}
@@ -1,11 +1,21 @@
 package com.example.registration;
 
+import com.example.registration.config.EntityCacheConfig;
+import com.example.registration.dto.BulkRegistrationResultDTO;
 import com.example.registration.dto.RegistrationResponseDTO;
 import com.example.registration.model.Course;
+import com.example.registration.model.Registration;
 import com.example.registration.model.Student;
 import com.example.registration.repository.CourseRepository;
 import com.example.registration.repository.RegistrationRepository;
 import com.example.registration.repository.StudentRepository;
+import com.example.registration.service.RegistrationService;
+import com.example.registration.service.StudentScheduleCache;
+import com.example.registration.service.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,11 +24,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,6 +58,21 @@ public class TestRegistration {
     @Autowired
     private RegistrationRepository registrationRepository;
 
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private StudentScheduleCache scheduleCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void setupAuthenticatedUser() {
         Student authUser = new Student();
@@ -83,6 +117,251 @@ public class TestRegistration {
         assertEquals(course.getId(), response.getBody().getCourseId());
     }
 
+    @Test
+    @DisplayName("POST /api/registrations - Return 409 when the course is full")
+    void createRegistration_CourseFull() {
+        Student student1 = studentRepository.save(new Student());
+        Student student2 = studentRepository.save(new Student());
+        Course course = new Course();
+        course.setCapacity(1);
+        course = courseRepository.save(course);
+
+        RegistrationResponseDTO DTO1 = new RegistrationResponseDTO();
+        DTO1.setStudentId(student1.getId());
+        DTO1.setCourseId(course.getId());
+        ResponseEntity<RegistrationResponseDTO> first = authenticationTemplate.postForEntity("/api/registrations", DTO1, RegistrationResponseDTO.class);
+
+        RegistrationResponseDTO DTO2 = new RegistrationResponseDTO();
+        DTO2.setStudentId(student2.getId());
+        DTO2.setCourseId(course.getId());
+        ResponseEntity<Object> second = authenticationTemplate.postForEntity("/api/registrations", DTO2, Object.class);
+
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, second.getStatusCode());
+
+        // deleting the first registration frees the seat again
+        authenticationTemplate.delete("/api/registrations/" + first.getBody().getRegistrationID());
+        ResponseEntity<Object> third = authenticationTemplate.postForEntity("/api/registrations", DTO2, Object.class);
+        assertEquals(HttpStatus.CREATED, third.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("POST /api/registrations - Keep the course in the second-level cache and check its row when it looks full")
+    void createRegistration_CachedCourse() {
+        Student student1 = studentRepository.save(new Student());
+        Student student2 = studentRepository.save(new Student());
+        Course course = new Course();
+        course.setCapacity(1);
+        course = courseRepository.save(course);
+
+        RegistrationResponseDTO DTO1 = new RegistrationResponseDTO();
+        DTO1.setStudentId(student1.getId());
+        DTO1.setCourseId(course.getId());
+        ResponseEntity<RegistrationResponseDTO> first = authenticationTemplate.postForEntity("/api/registrations", DTO1, RegistrationResponseDTO.class);
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        // taking the seat doesn't evict the course
+        assertTrue(entityManagerFactory.getCache().contains(Course.class, course.getId()));
+
+        // as if the entry had expired, the course is cached again as full
+        entityManagerFactory.getCache().evict(Course.class, course.getId());
+        RegistrationResponseDTO DTO2 = new RegistrationResponseDTO();
+        DTO2.setStudentId(student2.getId());
+        DTO2.setCourseId(course.getId());
+        assertEquals(HttpStatus.CONFLICT, authenticationTemplate.postForEntity("/api/registrations", DTO2, Object.class).getStatusCode());
+
+        // the seat is freed, the cached course still looks full but the row has the seat
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        authenticationTemplate.delete("/api/registrations/" + first.getBody().getRegistrationID());
+        ResponseEntity<RegistrationResponseDTO> second = authenticationTemplate.postForEntity("/api/registrations", DTO2, RegistrationResponseDTO.class);
+        assertEquals(HttpStatus.CREATED, second.getStatusCode());
+        assertTrue(statistics.getDomainDataRegionStatistics(EntityCacheConfig.COURSE_REGION).getHitCount() > 0);
+    }
+
+    @Test
+    @DisplayName("POST /api/registrations - Return 409 when the student is already registered for the course")
+    void createRegistration_AlreadyRegistered() {
+        Student student = studentRepository.save(new Student());
+        Course course = courseRepository.save(new Course());
+
+        RegistrationResponseDTO requestDto = new RegistrationResponseDTO();
+        requestDto.setStudentId(student.getId());
+        requestDto.setCourseId(course.getId());
+
+        ResponseEntity<RegistrationResponseDTO> first = authenticationTemplate.postForEntity("/api/registrations", requestDto, RegistrationResponseDTO.class);
+        ResponseEntity<Object> second = authenticationTemplate.postForEntity("/api/registrations", requestDto, Object.class);
+
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, second.getStatusCode());
+        assertEquals(1, registrationRepository.count());
+
+        // the database rejects a duplicate that skips the service too
+        assertThrows(DataIntegrityViolationException.class,
+                () -> registrationRepository.saveAndFlush(new Registration(student, course)));
+
+        // once the registration is deleted the student can register again
+        authenticationTemplate.delete("/api/registrations/" + first.getBody().getRegistrationID());
+        ResponseEntity<Object> third = authenticationTemplate.postForEntity("/api/registrations", requestDto, Object.class);
+        assertEquals(HttpStatus.CREATED, third.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("POST /api/registrations - Let a student register again after their registration was deleted on another instance")
+    void createRegistration_DeletedElsewhere() {
+        Student student = studentRepository.save(new Student());
+        Course course = courseRepository.save(new Course());
+
+        RegistrationResponseDTO requestDto = new RegistrationResponseDTO();
+        requestDto.setStudentId(student.getId());
+        requestDto.setCourseId(course.getId());
+        assertEquals(HttpStatus.CREATED, authenticationTemplate.postForEntity("/api/registrations", requestDto, Object.class).getStatusCode());
+
+        // deleted around JPA, so this instance's registration index still has the pair
+        jdbcTemplate.update("delete from registrations where student_id = ? and course_id = ?", student.getId(), course.getId());
+
+        ResponseEntity<Object> again = authenticationTemplate.postForEntity("/api/registrations", requestDto, Object.class);
+        assertEquals(HttpStatus.CREATED, again.getStatusCode());
+        assertEquals(1, registrationRepository.count());
+    }
+
+    @Test
+    @DisplayName("POST /api/registrations - Never enroll more students than the course capacity under concurrent requests")
+    void createRegistration_ConcurrentRequestsForFullCourse() throws Exception {
+        int capacity = 10;
+        int requests = 200;
+
+        Course course = new Course();
+        course.setTitle("Popular Course");
+        course.setCapacity(capacity);
+        Integer courseId = courseRepository.save(course).getId();
+
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            Student student = new Student();
+            student.setName("Student" + i);
+            student.setEmail("student" + i + "@gmail.com");
+            students.add(student);
+        }
+        students = studentRepository.saveAll(students);
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatus>> statuses = new ArrayList<>();
+        try {
+            for (Student student : students) {
+                // each student registers themselves, within their own rate limit
+                // a bearer token keeps BCrypt out of the timing, so the requests really overlap
+                HttpHeaders headers = new HttpHeaders();
+                headers.setBearerAuth(tokenService.issueToken(student.getEmail()).getToken());
+                RegistrationResponseDTO requestDto = new RegistrationResponseDTO();
+                requestDto.setStudentId(student.getId());
+                requestDto.setCourseId(courseId);
+                HttpEntity<RegistrationResponseDTO> request = new HttpEntity<>(requestDto, headers);
+
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return HttpStatus.valueOf(restTemplate.exchange("/api/registrations", HttpMethod.POST, request, Object.class)
+                            .getStatusCode().value());
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            int conflicts = 0;
+            for (Future<HttpStatus> status : statuses) {
+                HttpStatus result = status.get();
+                if (result == HttpStatus.CREATED) {
+                    created++;
+                } else if (result == HttpStatus.CONFLICT) {
+                    conflicts++;
+                }
+            }
+
+            assertEquals(capacity, created);
+            assertEquals(requests - capacity, conflicts);
+            assertEquals(capacity, registrationRepository.findByCourse(courseRepository.findById(courseId).orElseThrow()).size());
+            assertEquals(capacity, courseRepository.findEnrollment(courseId).orElseThrow().getEnrolled());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("POST /api/registrations/bulk - Create many registrations with a result per pair")
+    void createRegistrations_Bulk() {
+        Student student = studentRepository.save(new Student());
+        Course course1 = courseRepository.save(new Course());
+        Course course2 = courseRepository.save(new Course());
+
+        RegistrationResponseDTO DTO1 = new RegistrationResponseDTO();
+        DTO1.setStudentId(student.getId());
+        DTO1.setCourseId(course1.getId());
+
+        RegistrationResponseDTO DTO2 = new RegistrationResponseDTO();
+        DTO2.setStudentId(student.getId());
+        DTO2.setCourseId(course2.getId());
+
+        // this course does not exist
+        RegistrationResponseDTO DTO3 = new RegistrationResponseDTO();
+        DTO3.setStudentId(student.getId());
+        DTO3.setCourseId(-1);
+
+        ResponseEntity<List<BulkRegistrationResultDTO>> response = authenticationTemplate.exchange(
+                "/api/registrations/bulk",
+                HttpMethod.POST,
+                new HttpEntity<>(List.of(DTO1, DTO2, DTO3, DTO1)),
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<BulkRegistrationResultDTO> results = response.getBody();
+        assertNotNull(results);
+        assertEquals(4, results.size());
+
+        assertEquals(HttpStatus.CREATED.value(), results.get(0).getStatus());
+        assertTrue(registrationRepository.existsById(results.get(0).getRegistrationID()));
+        assertEquals(HttpStatus.CREATED.value(), results.get(1).getStatus());
+        assertTrue(registrationRepository.existsById(results.get(1).getRegistrationID()));
+
+        assertEquals(HttpStatus.NOT_FOUND.value(), results.get(2).getStatus());
+        assertNull(results.get(2).getRegistrationID());
+        assertNotNull(results.get(2).getError());
+        // the same pair twice in one request
+        assertEquals(HttpStatus.CONFLICT.value(), results.get(3).getStatus());
+        assertEquals(2, registrationRepository.count());
+    }
+
+    @Test
+    @DisplayName("POST /api/registrations/bulk - Fill a course up to its capacity and reject the rest")
+    void createRegistrations_BulkCourseFull() {
+        Course course = new Course();
+        course.setCapacity(2);
+        course = courseRepository.save(course);
+
+        List<RegistrationResponseDTO> requestDtos = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RegistrationResponseDTO requestDto = new RegistrationResponseDTO();
+            requestDto.setStudentId(studentRepository.save(new Student()).getId());
+            requestDto.setCourseId(course.getId());
+            requestDtos.add(requestDto);
+        }
+
+        ResponseEntity<List<BulkRegistrationResultDTO>> response = authenticationTemplate.exchange(
+                "/api/registrations/bulk",
+                HttpMethod.POST,
+                new HttpEntity<>(requestDtos),
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<BulkRegistrationResultDTO> results = response.getBody();
+        assertNotNull(results);
+        assertEquals(HttpStatus.CREATED.value(), results.get(0).getStatus());
+        assertEquals(HttpStatus.CREATED.value(), results.get(1).getStatus());
+        assertEquals(HttpStatus.CONFLICT.value(), results.get(2).getStatus());
+        assertEquals(2, courseRepository.findEnrollment(course.getId()).orElseThrow().getEnrolled());
+    }
+
     @Test
     @DisplayName("GET /api/registrations/{id} - Return a registration DTO")
     void getRegistration() {
@@ -132,6 +411,130 @@ public class TestRegistration {
         assertEquals(2, response.getBody().size());
     }
 
+    @Test
+    @DisplayName("GET /api/registrations?size= - Page through registrations with the next link")
+    void getAllRegistrations_shouldPageWithKeyset() {
+        Student student = studentRepository.save(new Student());
+        for (int i = 0; i < 3; i++) {
+            Course course = courseRepository.save(new Course());
+            RegistrationResponseDTO requestDto = new RegistrationResponseDTO();
+            requestDto.setStudentId(student.getId());
+            requestDto.setCourseId(course.getId());
+            authenticationTemplate.postForEntity("/api/registrations", requestDto, RegistrationResponseDTO.class);
+        }
+
+        ResponseEntity<List<RegistrationResponseDTO>> firstPage = authenticationTemplate.exchange(
+                "/api/registrations?size=2",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertEquals(HttpStatus.OK, firstPage.getStatusCode());
+        assertNotNull(firstPage.getBody());
+        assertEquals(2, firstPage.getBody().size());
+        String nextLink = firstPage.getHeaders().getFirst(HttpHeaders.LINK);
+        assertNotNull(nextLink);
+
+        Integer lastSeen = firstPage.getBody().get(1).getRegistrationID();
+        ResponseEntity<List<RegistrationResponseDTO>> secondPage = authenticationTemplate.exchange(
+                "/api/registrations?size=2&after=" + lastSeen,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertEquals(HttpStatus.OK, secondPage.getStatusCode());
+        assertNotNull(secondPage.getBody());
+        assertEquals(1, secondPage.getBody().size());
+        assertTrue(secondPage.getBody().get(0).getRegistrationID() > lastSeen);
+        assertNull(secondPage.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    @DisplayName("GET /api/registrations?size= - Return 400 for a page size over the limit")
+    void getAllRegistrations_shouldRejectOversizedPage() {
+        ResponseEntity<Object> response = authenticationTemplate.getForEntity(
+                "/api/registrations?size=100000",
+                Object.class
+        );
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/registrations/stream - Stream all registrations")
+    void streamAllRegistrations_shouldReturnEveryRegistration() {
+        Student student = studentRepository.save(new Student());
+        Course course1 = courseRepository.save(new Course());
+        Course course2 = courseRepository.save(new Course());
+
+        RegistrationResponseDTO DTO1 = new RegistrationResponseDTO();
+        DTO1.setStudentId(student.getId());
+        DTO1.setCourseId(course1.getId());
+        authenticationTemplate.postForEntity("/api/registrations", DTO1, RegistrationResponseDTO.class);
+
+        RegistrationResponseDTO DTO2 = new RegistrationResponseDTO();
+        DTO2.setStudentId(student.getId());
+        DTO2.setCourseId(course2.getId());
+        authenticationTemplate.postForEntity("/api/registrations", DTO2, RegistrationResponseDTO.class);
+
+        ResponseEntity<List<RegistrationResponseDTO>> response = authenticationTemplate.exchange(
+                "/api/registrations/stream",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().size());
+        assertEquals(course1.getId(), response.getBody().get(0).getCourseId());
+        assertEquals(course2.getId(), response.getBody().get(1).getCourseId());
+    }
+
+    @Test
+    @DisplayName("GET /api/registrations/export - Export all registrations as NDJSON and CSV")
+    void exportRegistrations() throws Exception {
+        Student student = new Student();
+        student.setName("Doe, \"JJ\"");
+        student = studentRepository.save(student);
+        Course course1 = new Course();
+        course1.setTitle("Algebra");
+        course1 = courseRepository.save(course1);
+        Course course2 = courseRepository.save(new Course());
+
+        RegistrationResponseDTO DTO1 = new RegistrationResponseDTO();
+        DTO1.setStudentId(student.getId());
+        DTO1.setCourseId(course1.getId());
+        Integer registrationID = authenticationTemplate.postForEntity("/api/registrations", DTO1, RegistrationResponseDTO.class)
+                .getBody().getRegistrationID();
+
+        RegistrationResponseDTO DTO2 = new RegistrationResponseDTO();
+        DTO2.setStudentId(student.getId());
+        DTO2.setCourseId(course2.getId());
+        authenticationTemplate.postForEntity("/api/registrations", DTO2, RegistrationResponseDTO.class);
+
+        ResponseEntity<String> ndjson = authenticationTemplate.getForEntity("/api/registrations/export", String.class);
+        assertEquals(HttpStatus.OK, ndjson.getStatusCode());
+        assertEquals("application/x-ndjson", ndjson.getHeaders().getContentType().toString());
+        String[] lines = ndjson.getBody().split("\n");
+        assertEquals(2, lines.length);
+        RegistrationResponseDTO first = new ObjectMapper().readValue(lines[0], RegistrationResponseDTO.class);
+        assertEquals(registrationID, first.getRegistrationID());
+        assertEquals("Algebra", first.getCourseTitle());
+
+        ResponseEntity<String> csv = authenticationTemplate.getForEntity("/api/registrations/export?format=csv", String.class);
+        assertEquals(HttpStatus.OK, csv.getStatusCode());
+        lines = csv.getBody().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("registrationID,studentId,studentName,courseId,courseTitle", lines[0]);
+        assertEquals(registrationID + "," + student.getId() + ",\"Doe, \"\"JJ\"\"\"," + course1.getId() + ",Algebra", lines[1]);
+
+        ResponseEntity<String> unknown = authenticationTemplate.getForEntity("/api/registrations/export?format=xml", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, unknown.getStatusCode());
+    }
+
     @Test
     @DisplayName("DELETE /api/registrations/{id} - Delete a registration")
     void deleteRegistration_shouldReturnNoContent() {
@@ -177,6 +580,53 @@ public class TestRegistration {
         assertEquals(0, registrations.size());
     }
 
+    @Test
+    @DisplayName("GET /api/registrations/studentid/{id} - Serve repeat views from the cache and refresh on register and drop")
+    void getAllRegistrationsByStudentId_shouldBeCached() {
+        Student student = studentRepository.save(new Student());
+        Course course = new Course();
+        course.setTitle("Course1");
+        course = courseRepository.save(course);
+        assertEquals(0, getSchedule(student).size());
+
+        RegistrationResponseDTO requestDto = new RegistrationResponseDTO();
+        requestDto.setStudentId(student.getId());
+        requestDto.setCourseId(course.getId());
+        ResponseEntity<RegistrationResponseDTO> created = authenticationTemplate.postForEntity("/api/registrations", requestDto, RegistrationResponseDTO.class);
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        assertEquals(List.of("Course1"), getSchedule(student).stream().map(RegistrationResponseDTO::getCourseTitle).toList());
+
+        // the second view runs no SQL at all
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(1, registrationService.getAllRegistrationsByStudentId(student.getId()).size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        authenticationTemplate.delete("/api/registrations/" + created.getBody().getRegistrationID());
+        assertEquals(0, getSchedule(student).size());
+    }
+
+    @Test
+    @DisplayName("GET /api/registrations/studentid/{id} - Drop a schedule read before a registration committed")
+    void getAllRegistrationsByStudentId_shouldNotCacheStaleRead() {
+        Student student = studentRepository.save(new Student());
+        Course course = courseRepository.save(new Course());
+
+        // a view that missed the cache and read the empty schedule, then lost the race with a registration
+        long version = scheduleCache.version(student.getId());
+        List<RegistrationResponseDTO> staleRead = List.of();
+
+        RegistrationResponseDTO requestDto = new RegistrationResponseDTO();
+        requestDto.setStudentId(student.getId());
+        requestDto.setCourseId(course.getId());
+        assertEquals(HttpStatus.CREATED, authenticationTemplate.postForEntity("/api/registrations", requestDto, RegistrationResponseDTO.class).getStatusCode());
+
+        scheduleCache.put(student.getId(), version, staleRead);
+
+        assertNull(scheduleCache.get(student.getId()));
+        assertEquals(1, getSchedule(student).size());
+    }
+
     @Test
     @DisplayName("GET /api/registrations/studentid/{id} - No registration found by student id")
     void getAllRegistrationsByStudentId_shouldReturnNotFound() {
@@ -190,4 +640,16 @@ public class TestRegistration {
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
+
+    private List<RegistrationResponseDTO> getSchedule(Student student) {
+        ResponseEntity<List<RegistrationResponseDTO>> response = authenticationTemplate.exchange(
+                "/api/registrations/studentid/" + student.getId(),
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        return response.getBody();
+    }
 }
\ No newline at end of file
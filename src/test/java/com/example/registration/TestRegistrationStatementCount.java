@@ -0,0 +1,157 @@
+package com.example.registration;
+
+import com.example.registration.config.EntityCacheConfig;
+import com.example.registration.model.Course;
+import com.example.registration.model.Registration;
+import com.example.registration.model.Student;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import com.example.registration.repository.StudentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// checks that the registration list endpoints run the same number of SQL statements
+// no matter how many rows they return
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true"
+)
+public class TestRegistrationStatementCount {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private TestRestTemplate authenticationTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setupAuthenticatedUser() {
+        Student authUser = new Student();
+        authUser.setName("TestStudent");
+        authUser.setEmail("TestStudentEmail@gmail.com");
+        authUser.setPassword("password");
+
+        // this endpoint is public, no authentication
+        restTemplate.postForEntity("/api/students", authUser, Student.class);
+
+        authenticationTemplate = restTemplate.withBasicAuth("TestStudentEmail@gmail.com", "password");
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void deleteAllData() {
+        registrationRepository.deleteAll();
+        studentRepository.deleteAll();
+        courseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("GET /api/registrations - Statement count does not grow with the number of rows")
+    void getAllRegistrations_shouldRunFixedNumberOfStatements() {
+        Student student = saveStudent("Student1");
+        register(student, 2);
+        long fewRows = countStatements("/api/registrations", 2);
+
+        register(student, 10);
+        long manyRows = countStatements("/api/registrations", 12);
+
+        assertEquals(fewRows, manyRows);
+    }
+
+    @Test
+    @DisplayName("GET /api/registrations/studentid/{id} - Statement count does not grow with the number of rows")
+    void getAllRegistrationsByStudentId_shouldRunFixedNumberOfStatements() {
+        Student student = saveStudent("Student1");
+        register(student, 2);
+        long fewRows = countStatements("/api/registrations/studentid/" + student.getId(), 2);
+
+        register(student, 10);
+        long manyRows = countStatements("/api/registrations/studentid/" + student.getId(), 12);
+
+        assertEquals(fewRows, manyRows);
+    }
+
+    @Test
+    @DisplayName("GET /api/registrations/stream - Statement count does not grow with the number of rows")
+    void streamAllRegistrations_shouldRunFixedNumberOfStatements() {
+        Student student = saveStudent("Student1");
+        register(student, 2);
+        long fewRows = countStatements("/api/registrations/stream", 2);
+
+        register(student, 10);
+        long manyRows = countStatements("/api/registrations/stream", 12);
+
+        assertEquals(fewRows, manyRows);
+    }
+
+    private Student saveStudent(String name) {
+        Student student = new Student();
+        student.setName(name);
+        student.setPassword("pass");
+        return studentRepository.save(student);
+    }
+
+    // registers the student for the given number of new courses
+    private void register(Student student, int courses) {
+        for (int i = 0; i < courses; i++) {
+            Course course = new Course();
+            course.setTitle("Course" + i);
+            course = courseRepository.save(course);
+
+            Registration registration = new Registration();
+            registration.setStudent(student);
+            registration.setCourse(course);
+            registrationRepository.save(registration);
+        }
+    }
+
+    // calls the endpoint and returns how many statements it prepared, checking it returned the expected rows
+    private long countStatements(String url, int expectedRows) {
+        // the HTTP Basic user lookup runs in every measurement, whether or not an earlier request cached it
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion(EntityCacheConfig.STUDENT_BY_EMAIL_REGION);
+        statistics.clear();
+
+        ResponseEntity<List<Object>> response = authenticationTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(expectedRows, response.getBody().size());
+        // no lazy association was initialized while building the response
+        assertEquals(0, statistics.getEntityFetchCount());
+        return statistics.getPrepareStatementCount();
+    }
+}
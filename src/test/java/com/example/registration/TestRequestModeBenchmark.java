@@ -0,0 +1,254 @@
+package com.example.registration;
+
+import com.example.registration.model.Course;
+import com.example.registration.model.Registration;
+import com.example.registration.model.Student;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import com.example.registration.repository.StudentRepository;
+import com.example.registration.repository.WaitlistRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// compares request handling on Tomcat's platform thread pool with the virtual-threads profile
+// boots the application once per mode against the configured database and drives the same load at both
+// run with: mvn test -Pbenchmark
+@Tag("benchmark")
+public class TestRequestModeBenchmark {
+
+    // more concurrent clients than Tomcat's 200 platform threads, so the platform pool queues
+    private static final int CLIENTS = 400;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(20);
+
+    private static final int STUDENTS = 200;
+    private static final int COURSES = 50;
+    private static final int REGISTRATIONS_PER_STUDENT = 5;
+
+    private static final String EMAIL = "BenchmarkStudent@gmail.com";
+    private static final String PASSWORD = "password";
+
+    @Test
+    @DisplayName("Compare throughput and p99 latency of platform and virtual request threads")
+    void compareRequestModes() throws Exception {
+        Result platform = run();
+        Result virtual = run("virtual-threads");
+
+        System.out.println("mode      requests  errors  req/s     p50 ms  p99 ms");
+        print("platform", platform);
+        print("virtual", virtual);
+
+        assertTrue(platform.requests() > 0);
+        assertTrue(virtual.requests() > 0);
+    }
+
+    private Result run(String... profiles) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CourseregistrationApplication.class)
+                .profiles(profiles)
+                // command line arguments, so they win over application.properties
+                .run(
+                        "--server.port=0",
+                        // the same pool in both modes, so only the threading differs
+                        "--spring.datasource.hikari.maximum-pool-size=20",
+                        // every simulated client comes from localhost and shares one student's limits
+                        "--registration.rate-limit.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.springframework.web=INFO")) {
+            String baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            List<Integer> studentIds = seed(context, baseUrl);
+            try {
+                Load load = new Load(baseUrl, studentIds);
+                load.run(WARMUP);
+                return load.run(MEASUREMENT);
+            } finally {
+                deleteAllData(context);
+            }
+        }
+    }
+
+    // one authenticated student plus students registered for a few courses each
+    private List<Integer> seed(ConfigurableApplicationContext context, String baseUrl) {
+        StudentRepository studentRepository = context.getBean(StudentRepository.class);
+        CourseRepository courseRepository = context.getBean(CourseRepository.class);
+        RegistrationRepository registrationRepository = context.getBean(RegistrationRepository.class);
+
+        String body = "{\"name\":\"BenchmarkStudent\",\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}";
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/students"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not create the benchmark user", e);
+        }
+
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < COURSES; i++) {
+            Course course = new Course();
+            course.setTitle("Course" + i);
+            courses.add(course);
+        }
+        courses = courseRepository.saveAll(courses);
+
+        List<Integer> studentIds = new ArrayList<>();
+        List<Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student();
+            student.setName("Student" + i);
+            student = studentRepository.save(student);
+            studentIds.add(student.getId());
+            for (int j = 0; j < REGISTRATIONS_PER_STUDENT; j++) {
+                registrations.add(new Registration(student, courses.get((i + j) % COURSES)));
+            }
+        }
+        registrationRepository.saveAll(registrations);
+        return studentIds;
+    }
+
+    private void deleteAllData(ConfigurableApplicationContext context) {
+        context.getBean(WaitlistRepository.class).deleteAll();
+        context.getBean(RegistrationRepository.class).deleteAll();
+        context.getBean(StudentRepository.class).deleteAll();
+        context.getBean(CourseRepository.class).deleteAll();
+    }
+
+    private static void print(String mode, Result result) {
+        System.out.printf("%-9s %-9d %-7d %-9.1f %-7.1f %-7.1f%n", mode, result.requests(), result.errors(),
+                result.throughput(), result.p50Millis(), result.p99Millis());
+    }
+
+    // closed-loop load: every client sends its next request as soon as the last one returns
+    // the mix is mostly authenticated reads that block on JDBC, with some HTTP Basic requests that also run BCrypt
+    private static class Load {
+
+        private final String baseUrl;
+        private final List<Integer> studentIds;
+        private final String basic = "Basic " + Base64.getEncoder().encodeToString((EMAIL + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+
+        Load(String baseUrl, List<Integer> studentIds) {
+            this.baseUrl = baseUrl;
+            this.studentIds = studentIds;
+        }
+
+        Result run(Duration duration) throws Exception {
+            long end = System.nanoTime() + duration.toNanos();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient client = HttpClient.newBuilder().executor(clients).build()) {
+                String bearer = "Bearer " + login(client);
+
+                List<Future<List<Long>>> futures = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; i++) {
+                    futures.add(clients.submit(() -> drive(client, bearer, end)));
+                }
+
+                List<Long> latencies = new ArrayList<>();
+                int errors = 0;
+                for (Future<List<Long>> future : futures) {
+                    for (long latency : future.get()) {
+                        // failed requests are recorded as negative latencies
+                        if (latency < 0) {
+                            errors++;
+                        } else {
+                            latencies.add(latency);
+                        }
+                    }
+                }
+                latencies.sort(null);
+                return new Result(latencies, errors, duration);
+            }
+        }
+
+        private String login(HttpClient client) throws Exception {
+            String body = "{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}";
+            String response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString()).body();
+            // {"token":"...", ...}
+            int start = response.indexOf("\"token\":\"") + "\"token\":\"".length();
+            return response.substring(start, response.indexOf('"', start));
+        }
+
+        private List<Long> drive(HttpClient client, String bearer, long end) {
+            List<Long> latencies = new ArrayList<>();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < end) {
+                int pick = random.nextInt(100);
+                HttpRequest request;
+                if (pick < 60) {
+                    Integer studentId = studentIds.get(random.nextInt(studentIds.size()));
+                    request = get("/api/registrations/studentid/" + studentId, bearer);
+                } else if (pick < 95) {
+                    request = get("/api/courses", bearer);
+                } else {
+                    request = get("/api/courses", basic);
+                }
+
+                long start = System.nanoTime();
+                try {
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    long latency = System.nanoTime() - start;
+                    latencies.add(status == 200 ? latency : -1L);
+                } catch (Exception e) {
+                    latencies.add(-1L);
+                }
+            }
+            return latencies;
+        }
+
+        private HttpRequest get(String path, String authorization) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", authorization)
+                    .GET()
+                    .build();
+        }
+    }
+
+    // latencies are sorted, in nanoseconds
+    private record Result(List<Long> latencies, int errors, Duration duration) {
+
+        int requests() {
+            return latencies.size() + errors;
+        }
+
+        double throughput() {
+            return latencies.size() / (duration.toMillis() / 1000.0);
+        }
+
+        double p50Millis() {
+            return percentile(0.50);
+        }
+
+        double p99Millis() {
+            return percentile(0.99);
+        }
+
+        private double percentile(double percentile) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * latencies.size()) - 1;
+            return latencies.get(Math.max(index, 0)) / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.registration;
+
+import com.example.registration.model.Course;
+import com.example.registration.model.Registration;
+import com.example.registration.model.Student;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import com.example.registration.repository.StudentRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the list endpoints in CBOR, Smile and gzip-compressed JSON, each checked against the plain JSON response
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class TestResponseFormats {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private TestRestTemplate authenticationTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setupAuthenticatedUser() {
+        Student authUser = new Student();
+        authUser.setName("TestStudent");
+        authUser.setEmail("TestStudentEmail@gmail.com");
+        authUser.setPassword("password");
+
+        // this endpoint is public, no authentication
+        restTemplate.postForEntity("/api/students", authUser, Student.class);
+
+        authenticationTemplate = restTemplate.withBasicAuth("TestStudentEmail@gmail.com", "password");
+
+        // enough rows for the responses to be compressed
+        List<Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Student student = new Student();
+            student.setName("Student" + i);
+            student.setEmail("student" + i + "@example.com");
+            student = studentRepository.save(student);
+            Course course = new Course();
+            course.setTitle("Course" + i);
+            course.setDescription("Description of course " + i);
+            course = courseRepository.save(course);
+            registrations.add(new Registration(student, course));
+        }
+        registrationRepository.saveAll(registrations);
+    }
+
+    @AfterEach
+    public void deleteAllData() {
+        registrationRepository.deleteAll();
+        studentRepository.deleteAll();
+        courseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("GET /api/registrations - Return CBOR for Accept: application/cbor")
+    void getAllRegistrations_Cbor() throws IOException {
+        ResponseEntity<byte[]> response = get("/api/registrations", CBOR, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(CBOR.isCompatibleWith(response.getHeaders().getContentType()));
+        byte[] json = get("/api/registrations", MediaType.APPLICATION_JSON, null).getBody();
+        assertEquals(jsonMapper.readTree(json), new CBORMapper().readTree(response.getBody()));
+        assertTrue(response.getBody().length < json.length);
+    }
+
+    @Test
+    @DisplayName("GET /api/students - Return Smile for Accept: application/x-jackson-smile")
+    void getAllStudents_Smile() throws IOException {
+        ResponseEntity<byte[]> response = get("/api/students", SMILE, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(SMILE.isCompatibleWith(response.getHeaders().getContentType()));
+        byte[] json = get("/api/students", MediaType.APPLICATION_JSON, null).getBody();
+        assertEquals(jsonMapper.readTree(json), new SmileMapper().readTree(response.getBody()));
+        assertTrue(response.getBody().length < json.length);
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Return gzip-compressed JSON for Accept-Encoding: gzip")
+    void getAllCourses_Gzip() throws IOException {
+        ResponseEntity<byte[]> response = get("/api/courses", MediaType.APPLICATION_JSON, "gzip");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        byte[] json = get("/api/courses", MediaType.APPLICATION_JSON, null).getBody();
+        try (GZIPInputStream unzipped = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertEquals(jsonMapper.readTree(json), jsonMapper.readTree(unzipped));
+        }
+        assertTrue(response.getBody().length < json.length);
+    }
+
+    @Test
+    @DisplayName("GET /api/courses - Return JSON when the client accepts anything")
+    void getAllCourses_DefaultsToJson() throws IOException {
+        ResponseEntity<byte[]> response = get("/api/courses", MediaType.ALL, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(response.getHeaders().getContentType()));
+        JsonNode courses = jsonMapper.readTree(response.getBody());
+        assertEquals(50, courses.size());
+    }
+
+    private ResponseEntity<byte[]> get(String url, MediaType accept, String acceptEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(accept));
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return authenticationTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+}
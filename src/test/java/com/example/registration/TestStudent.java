@@ -1,5 +1,7 @@
 package com.example.registration;
 
+import com.example.registration.dto.RegistrationResponseDTO;
+import com.example.registration.dto.StudentImportResultDTO;
 import com.example.registration.model.Course;
 import com.example.registration.model.Registration;
 import com.example.registration.model.Student;
@@ -18,8 +20,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
@@ -114,6 +118,73 @@ public class TestStudent {
         assertTrue(studentRepository.existsById(response.getBody().getId()));
     }
 
+    @Test
+    @DisplayName("POST /api/students/import - Import students from CSV with a result per row")
+    void importStudentsCsv() {
+        String csv = """
+                name,email,password
+                "Smith, Jane",jane.smith@gmail.com,pass1
+                Peter Jones,peter.jones@gmail.com,pass2
+                Jane Again,jane.smith@gmail.com,pass3
+                Test Student,TestStudentEmail@gmail.com,pass4
+                No Password,no.password@gmail.com,
+                too,many,fields,here
+                """;
+        // not a student yet, the failed lookup is in the query cache until the import evicts it
+        ResponseEntity<String> before = restTemplate.withBasicAuth("jane.smith@gmail.com", "pass1").getForEntity("/api/courses", String.class);
+        assertEquals(HttpStatus.UNAUTHORIZED, before.getStatusCode());
+
+        List<StudentImportResultDTO> results = importStudents(csv, "text/csv");
+
+        assertEquals(6, results.size());
+        assertEquals(HttpStatus.CREATED.value(), results.get(0).getStatus());
+        assertEquals(HttpStatus.CREATED.value(), results.get(1).getStatus());
+        // duplicate inside the file, and an email that was already taken
+        assertEquals(HttpStatus.CONFLICT.value(), results.get(2).getStatus());
+        assertEquals(HttpStatus.CONFLICT.value(), results.get(3).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), results.get(4).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), results.get(5).getStatus());
+        assertEquals(6, results.get(5).getRow());
+
+        Student imported = studentRepository.findByEmail("jane.smith@gmail.com").orElseThrow();
+        assertEquals("Smith, Jane", imported.getName());
+        // the password was hashed, so the imported student can log in with it
+        ResponseEntity<String> courses = restTemplate.withBasicAuth("jane.smith@gmail.com", "pass1").getForEntity("/api/courses", String.class);
+        assertEquals(HttpStatus.OK, courses.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("POST /api/students/import - Import students from NDJSON")
+    void importStudentsNdjson() {
+        String ndjson = """
+                {"name":"Mary Brown","email":"mary.brown@gmail.com","password":"pass1"}
+                {"name":"Broken"
+                {"name":"No Email","password":"pass2"}
+                """;
+
+        List<StudentImportResultDTO> results = importStudents(ndjson, "application/x-ndjson");
+
+        assertEquals(3, results.size());
+        assertEquals(HttpStatus.CREATED.value(), results.get(0).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), results.get(1).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), results.get(2).getStatus());
+        assertTrue(studentRepository.findByEmail("mary.brown@gmail.com").isPresent());
+    }
+
+    private List<StudentImportResultDTO> importStudents(String body, String contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(contentType));
+        ResponseEntity<List<StudentImportResultDTO>> response = authenticationTemplate.exchange(
+                "/api/students/import",
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                new ParameterizedTypeReference<>() {}
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        return response.getBody();
+    }
+
     @Test
     @DisplayName("GET /api/students/{id} - Return a student")
     void getStudentByID() {
@@ -126,6 +197,42 @@ public class TestStudent {
         assertEquals(student.getId(), response.getBody().getId());
     }
 
+    @Test
+    @DisplayName("GET /api/students/{id} - Return 304 for the current ETag and a new ETag after an update")
+    void getStudentByID_NotModified() {
+        Student student = new Student();
+        student.setName("Test Name");
+        student.setEmail("test.name@gmail.com");
+        student = studentRepository.save(student);
+
+        ResponseEntity<Student> first = authenticationTemplate.getForEntity("/api/students/" + student.getId(), Student.class);
+        String eTag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(eTag);
+
+        ResponseEntity<Student> notModified = getIfNoneMatch("/api/students/" + student.getId(), eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(eTag, notModified.getHeaders().getETag());
+
+        Student updatedDetails = new Student();
+        updatedDetails.setName("Updated Name");
+        updatedDetails.setEmail("test.name@gmail.com");
+        authenticationTemplate.exchange("/api/students/" + student.getId(), HttpMethod.PUT, new HttpEntity<>(updatedDetails), Student.class);
+
+        ResponseEntity<Student> modified = getIfNoneMatch("/api/students/" + student.getId(), eTag);
+        assertEquals(HttpStatus.OK, modified.getStatusCode());
+        assertNotNull(modified.getBody());
+        assertEquals("Updated Name", modified.getBody().getName());
+        assertNotEquals(eTag, modified.getHeaders().getETag());
+    }
+
+    private ResponseEntity<Student> getIfNoneMatch(String url, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return authenticationTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), Student.class);
+    }
+
     @Test
     @DisplayName("GET /api/students/{id} - Return 404")
     void getStudentByInvalidID() {
@@ -178,6 +285,43 @@ public class TestStudent {
         assertEquals("updated.email@gmail.com", response.getBody().getEmail());
     }
 
+    @Test
+    @DisplayName("PUT /api/students/{id} - Copy the new name and email onto the student's registrations")
+    void updateStudent_RenamesRegistrations() {
+        Student student = new Student();
+        student.setName("Old Name");
+        student.setEmail("old.email@gmail.com");
+        student = studentRepository.save(student);
+        Course course = new Course();
+        course.setTitle("Test Course");
+        course = courseRepository.save(course);
+        registrationRepository.save(new Registration(student, course));
+        // caches the schedule with the old name
+        authenticationTemplate.getForEntity("/api/registrations/studentid/" + student.getId(), Object.class);
+
+        Student updatedDetails = new Student();
+        updatedDetails.setName("Updated Name");
+        updatedDetails.setEmail("updated.email@gmail.com");
+        authenticationTemplate.exchange("/api/students/" + student.getId(),
+                HttpMethod.PUT,
+                new HttpEntity<>(updatedDetails),
+                Student.class
+        );
+
+        ResponseEntity<List<RegistrationResponseDTO>> response = authenticationTemplate.exchange(
+                "/api/registrations/studentid/" + student.getId(),
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().size());
+        assertEquals("Updated Name", response.getBody().getFirst().getStudentName());
+        assertEquals("updated.email@gmail.com",
+                registrationRepository.findByStudentId(student.getId()).getFirst().getStudentEmail());
+    }
+
     @Test
     @DisplayName("DELETE /api/students/{id} - Delete a student")
     public void deleteStudent() {
@@ -0,0 +1,86 @@
+package com.example.registration;
+
+import com.example.registration.model.Student;
+import com.example.registration.repository.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// one hashing thread and room for one waiting password, so a burst of sign-ups overflows the queue
+// the sign-up rate limit is off, the burst has to reach the queue
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "registration.hashing.threads=1",
+                "registration.hashing.queue-capacity=1",
+                "registration.hashing.retry-after-seconds=2",
+                "registration.rate-limit.enabled=false"
+        }
+)
+public class TestStudentBackpressure {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @AfterEach
+    public void deleteAllData() {
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("POST /api/students - Return 503 with Retry-After when the hashing queue is full")
+    void createStudent_HashingQueueFull() throws Exception {
+        int requests = 20;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<String>>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(requests)) {
+            for (int i = 0; i < requests; i++) {
+                Student student = new Student();
+                student.setName("Student" + i);
+                student.setEmail("student" + i + "@gmail.com");
+                student.setPassword("password");
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return restTemplate.postForEntity("/api/students", student, String.class);
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            int rejected = 0;
+            for (Future<ResponseEntity<String>> future : futures) {
+                ResponseEntity<String> response = future.get();
+                if (response.getStatusCode() == HttpStatus.CREATED) {
+                    created++;
+                } else {
+                    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+                    assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+                    rejected++;
+                }
+            }
+
+            assertTrue(created > 0);
+            assertTrue(rejected > 0);
+            assertEquals(created, studentRepository.count());
+        }
+    }
+}
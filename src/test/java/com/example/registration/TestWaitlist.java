@@ -0,0 +1,229 @@
+package com.example.registration;
+
+import com.example.registration.dto.RegistrationResponseDTO;
+import com.example.registration.dto.WaitlistEntryDTO;
+import com.example.registration.model.Course;
+import com.example.registration.model.Student;
+import com.example.registration.model.WaitlistEntry;
+import com.example.registration.repository.CourseRepository;
+import com.example.registration.repository.RegistrationRepository;
+import com.example.registration.repository.StudentRepository;
+import com.example.registration.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the periodic sweep is pushed out of the way, so only the seats a test frees are promoted, and only when it expects
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "registration.waitlist.sweep-interval-ms=3600000")
+public class TestWaitlist {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private TestRestTemplate authenticationTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @BeforeEach
+    void setupAuthenticatedUser() {
+        Student authUser = new Student();
+        authUser.setName("TestStudent");
+        authUser.setEmail("TestStudentEmail@gmail.com");
+        authUser.setPassword("password");
+
+        // this endpoint is public, no authentication
+        restTemplate.postForEntity("/api/students", authUser, Student.class);
+
+        authenticationTemplate = restTemplate.withBasicAuth("TestStudentEmail@gmail.com", "password");
+    }
+
+    @AfterEach
+    public void deleteAllData() {
+        waitlistRepository.deleteAll();
+        registrationRepository.deleteAll();
+        studentRepository.deleteAll();
+        courseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("POST /api/waitlist - Join the waitlist of a full course")
+    void joinWaitlist() {
+        Course course = fullCourse();
+        Student student = studentRepository.save(new Student());
+
+        ResponseEntity<WaitlistEntryDTO> response = authenticationTemplate.postForEntity("/api/waitlist", request(student, course), WaitlistEntryDTO.class);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(student.getId(), response.getBody().getStudentId());
+
+        ResponseEntity<List<WaitlistEntryDTO>> waitlist = authenticationTemplate.exchange(
+                "/api/waitlist/courseid/" + course.getId(),
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+        assertEquals(HttpStatus.OK, waitlist.getStatusCode());
+        assertNotNull(waitlist.getBody());
+        assertEquals(1, waitlist.getBody().size());
+    }
+
+    @Test
+    @DisplayName("POST /api/waitlist - Return 409 for a course with free seats")
+    void joinWaitlist_FreeSeats() {
+        Course course = new Course();
+        course.setCapacity(1);
+        course = courseRepository.save(course);
+        Student student = studentRepository.save(new Student());
+
+        ResponseEntity<Object> response = authenticationTemplate.postForEntity("/api/waitlist", request(student, course), Object.class);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("DELETE /api/registrations/{id} - Promote the first waiting student into the freed seat")
+    void deleteRegistration_PromotesWaitlist() throws InterruptedException {
+        Course course = new Course();
+        course.setCapacity(1);
+        course = courseRepository.save(course);
+
+        Student registered = studentRepository.save(new Student());
+        Student firstInLine = studentRepository.save(new Student());
+        Student secondInLine = studentRepository.save(new Student());
+
+        Integer registrationId = authenticationTemplate.postForEntity("/api/registrations", request(registered, course), RegistrationResponseDTO.class)
+                .getBody().getRegistrationID();
+        authenticationTemplate.postForEntity("/api/waitlist", request(firstInLine, course), WaitlistEntryDTO.class);
+        authenticationTemplate.postForEntity("/api/waitlist", request(secondInLine, course), WaitlistEntryDTO.class);
+
+        ResponseEntity<Void> response = authenticationTemplate.exchange(
+                "/api/registrations/" + registrationId,
+                HttpMethod.DELETE,
+                null,
+                Void.class
+        );
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+
+        // promotion happens in the background, wait for it
+        for (int i = 0; i < 50 && !registrationRepository.existsByStudentIdAndCourseId(firstInLine.getId(), course.getId()); i++) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(registrationRepository.existsByStudentIdAndCourseId(firstInLine.getId(), course.getId()));
+        assertFalse(registrationRepository.existsByStudentIdAndCourseId(secondInLine.getId(), course.getId()));
+        assertFalse(waitlistRepository.existsByStudentIdAndCourseId(firstInLine.getId(), course.getId()));
+        assertTrue(waitlistRepository.existsByStudentIdAndCourseId(secondInLine.getId(), course.getId()));
+        assertEquals(1, courseRepository.findEnrollment(course.getId()).orElseThrow().getEnrolled());
+    }
+
+    @Test
+    @DisplayName("POST /api/registrations - Return 409 for a freed seat unless first in line")
+    void createRegistration_Waitlisted() {
+        Course course = fullCourse();
+        Student firstInLine = studentRepository.save(new Student());
+        Student secondInLine = studentRepository.save(new Student());
+        Student newcomer = studentRepository.save(new Student());
+        authenticationTemplate.postForEntity("/api/waitlist", request(firstInLine, course), WaitlistEntryDTO.class);
+        authenticationTemplate.postForEntity("/api/waitlist", request(secondInLine, course), WaitlistEntryDTO.class);
+
+        // a seat opens up before the promoter has run
+        course = courseRepository.findById(course.getId()).orElseThrow();
+        course.setCapacity(2);
+        courseRepository.save(course);
+
+        assertEquals(HttpStatus.CONFLICT, authenticationTemplate.postForEntity("/api/registrations", request(newcomer, course), Object.class).getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, authenticationTemplate.postForEntity("/api/registrations", request(secondInLine, course), Object.class).getStatusCode());
+
+        ResponseEntity<RegistrationResponseDTO> response = authenticationTemplate.postForEntity("/api/registrations", request(firstInLine, course), RegistrationResponseDTO.class);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertFalse(waitlistRepository.existsByStudentIdAndCourseId(firstInLine.getId(), course.getId()));
+        assertTrue(waitlistRepository.existsByStudentIdAndCourseId(secondInLine.getId(), course.getId()));
+        assertFalse(registrationRepository.existsByStudentIdAndCourseId(newcomer.getId(), course.getId()));
+        assertEquals(2, courseRepository.findEnrollment(course.getId()).orElseThrow().getEnrolled());
+    }
+
+    @Test
+    @DisplayName("POST /api/waitlist - Join the back of the line of a course whose free seats are held for it")
+    void joinWaitlist_FreeSeatsHeldForLine() {
+        Course course = fullCourse();
+        Student firstInLine = studentRepository.save(new Student());
+        Student newcomer = studentRepository.save(new Student());
+        authenticationTemplate.postForEntity("/api/waitlist", request(firstInLine, course), WaitlistEntryDTO.class);
+
+        // a seat opens up before the promoter has run
+        course = courseRepository.findById(course.getId()).orElseThrow();
+        course.setCapacity(2);
+        courseRepository.save(course);
+
+        assertEquals(HttpStatus.CONFLICT, authenticationTemplate.postForEntity("/api/registrations", request(newcomer, course), Object.class).getStatusCode());
+        ResponseEntity<WaitlistEntryDTO> response = authenticationTemplate.postForEntity("/api/waitlist", request(newcomer, course), WaitlistEntryDTO.class);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(List.of(firstInLine.getId(), newcomer.getId()),
+                waitlistRepository.findByCourseIdInOrder(course.getId()).stream().map(WaitlistEntry::getStudentId).toList());
+    }
+
+    @Test
+    @DisplayName("PUT /api/courses/{id} - Promote waiting students into seats added by raising the capacity")
+    void updateCourse_CapacityRaisedPromotesWaitlist() throws InterruptedException {
+        Course course = fullCourse();
+        Student firstInLine = studentRepository.save(new Student());
+        authenticationTemplate.postForEntity("/api/waitlist", request(firstInLine, course), WaitlistEntryDTO.class);
+
+        Course updatedDetails = new Course();
+        updatedDetails.setCapacity(2);
+        ResponseEntity<Course> response = authenticationTemplate.exchange(
+                "/api/courses/" + course.getId(), HttpMethod.PUT, new HttpEntity<>(updatedDetails), Course.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        // promotion happens in the background, the sweep is off so only the capacity change can start it
+        for (int i = 0; i < 50 && !registrationRepository.existsByStudentIdAndCourseId(firstInLine.getId(), course.getId()); i++) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(registrationRepository.existsByStudentIdAndCourseId(firstInLine.getId(), course.getId()));
+        assertFalse(waitlistRepository.existsByStudentIdAndCourseId(firstInLine.getId(), course.getId()));
+    }
+
+    // a course with one seat, already taken
+    private Course fullCourse() {
+        Course course = new Course();
+        course.setCapacity(1);
+        course = courseRepository.save(course);
+        authenticationTemplate.postForEntity("/api/registrations", request(studentRepository.save(new Student()), course), RegistrationResponseDTO.class);
+        return course;
+    }
+
+    private static RegistrationResponseDTO request(Student student, Course course) {
+        RegistrationResponseDTO requestDto = new RegistrationResponseDTO();
+        requestDto.setStudentId(student.getId());
+        requestDto.setCourseId(course.getId());
+        return requestDto;
+    }
+}